@@ -0,0 +1,51 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inputs for the benchmarks.
+ *
+ * small  - level3.icss as is (4 rules);
+ * medium - 1.000 generated rules;
+ * large  - 100.000 generated rules.
+ *
+ * Generated inputs use {@link StylesheetGenerator} with a fixed seed, so every run measures the same program.
+ */
+final class BenchmarkInputs {
+
+    static final long SEED = 20201;
+
+    private BenchmarkInputs() {
+    }
+
+    static String forSize(String size) {
+        switch (size) {
+            case "small":
+                return resource("level3.icss");
+            case "medium":
+                return generated(1_000);
+            case "large":
+                return generated(100_000);
+            default:
+                throw new IllegalArgumentException("Unknown input size: " + size);
+        }
+    }
+
+    static String generated(int rules) {
+        return new StylesheetGenerator().seed(SEED).rules(rules).generate().getSource();
+    }
+
+    static String resource(String naam) {
+        try (InputStream in = BenchmarkInputs.class.getClassLoader().getResourceAsStream(naam)) {
+            if (in == null) throw new IllegalArgumentException("Resource not found: " + naam);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch cost per node on deep expression trees: the same type inference once with the
+ * instanceof chain the passes used to have, and once through {@link ASTVisitor}.
+ * {@code check} runs the real {@link Checker} on a stylesheet made of such expressions.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="DispatchBenchmarks"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmarks {
+
+    /**
+     * Number of operations in each expression (left-deep: ((a + b) * 2 - c) ...).
+     */
+    @Param({"8", "64", "512"})
+    public int depth;
+
+    private Expression expression;
+    private AST ast;
+
+    @Setup
+    public void prepare() {
+        expression = deepExpression(depth);
+
+        ArrayList<ASTNode> body = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Declaration declaration = new Declaration("width");
+            declaration.expression = deepExpression(depth);
+            body.add(declaration);
+        }
+        ast = new AST(new Stylesheet());
+        ast.root.addChild(new Stylerule(new TagSelector("p"), body));
+    }
+
+    // Afwisselend +, * en - zodat elke soort knoop (en literal) langskomt.
+    static Expression deepExpression(int depth) {
+        Expression acc = new PixelLiteral(1);
+        for (int i = 0; i < depth; i++) {
+            Operation op;
+            switch (i % 3) {
+                case 0:
+                    op = new AddOperation();
+                    op.rhs = new PixelLiteral(i);
+                    break;
+                case 1:
+                    op = new MultiplyOperation();
+                    op.rhs = new ScalarLiteral(2);
+                    break;
+                default:
+                    op = new SubtractOperation();
+                    op.rhs = new PixelLiteral(i);
+            }
+            op.lhs = acc;
+            acc = op;
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public ExpressionType instanceofChain() {
+        return typeWithInstanceof(expression);
+    }
+
+    @Benchmark
+    public ExpressionType visitor() {
+        return expression.accept(TYPE_VISITOR);
+    }
+
+    @Benchmark
+    public AST check() {
+        new Checker().check(ast);
+        return ast;
+    }
+
+    // Zoals de checker het deed voor de visitor er was.
+    private static ExpressionType typeWithInstanceof(Expression expressie) {
+        if (expressie instanceof PixelLiteral) return ExpressionType.PIXEL;
+        if (expressie instanceof PercentageLiteral) return ExpressionType.PERCENTAGE;
+        if (expressie instanceof ScalarLiteral) return ExpressionType.SCALAR;
+        if (expressie instanceof ColorLiteral) return ExpressionType.COLOR;
+        if (expressie instanceof BoolLiteral) return ExpressionType.BOOL;
+        if (expressie instanceof VariableReference) return ExpressionType.UNDEFINED;
+        if (expressie instanceof AddOperation || expressie instanceof SubtractOperation) {
+            Operation bewerking = (Operation) expressie;
+            ExpressionType links = typeWithInstanceof(bewerking.lhs);
+            ExpressionType rechts = typeWithInstanceof(bewerking.rhs);
+            return links == rechts ? links : ExpressionType.UNDEFINED;
+        }
+        if (expressie instanceof MultiplyOperation) {
+            Operation bewerking = (Operation) expressie;
+            ExpressionType links = typeWithInstanceof(bewerking.lhs);
+            ExpressionType rechts = typeWithInstanceof(bewerking.rhs);
+            return links == ExpressionType.SCALAR ? rechts : links;
+        }
+        return ExpressionType.UNDEFINED;
+    }
+
+    private static final ASTVisitor<ExpressionType> TYPE_VISITOR = new ASTVisitor<>() {
+        @Override
+        public ExpressionType visitNode(ASTNode node) {
+            return ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitPixelLiteral(PixelLiteral node) {
+            return ExpressionType.PIXEL;
+        }
+
+        @Override
+        public ExpressionType visitPercentageLiteral(PercentageLiteral node) {
+            return ExpressionType.PERCENTAGE;
+        }
+
+        @Override
+        public ExpressionType visitScalarLiteral(ScalarLiteral node) {
+            return ExpressionType.SCALAR;
+        }
+
+        @Override
+        public ExpressionType visitColorLiteral(ColorLiteral node) {
+            return ExpressionType.COLOR;
+        }
+
+        @Override
+        public ExpressionType visitBoolLiteral(BoolLiteral node) {
+            return ExpressionType.BOOL;
+        }
+
+        @Override
+        public ExpressionType visitAddOperation(AddOperation node) {
+            return sum(node);
+        }
+
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation node) {
+            return sum(node);
+        }
+
+        private ExpressionType sum(Operation node) {
+            ExpressionType links = node.lhs.accept(this);
+            ExpressionType rechts = node.rhs.accept(this);
+            return links == rechts ? links : ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation node) {
+            ExpressionType links = node.lhs.accept(this);
+            ExpressionType rechts = node.rhs.accept(this);
+            return links == ExpressionType.SCALAR ? rechts : links;
+        }
+    };
+}
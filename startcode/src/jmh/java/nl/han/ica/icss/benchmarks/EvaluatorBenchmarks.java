@@ -0,0 +1,73 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.compiler.ParseResult;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Evaluator#apply} on inputs where a single evaluation is too short for a per-invocation
+ * setup: every invocation evaluates {@link #BATCH} copies that were prepared beforehand, and the
+ * time is reported per copy. Larger inputs are in {@link StageBenchmarks#evaluate}; a batch of
+ * those would not fit in the heap.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="EvaluatorBenchmarks"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmarks {
+
+    static final int BATCH = 64;
+
+    @Param({"small", "medium"})
+    public String size;
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+    private ParseResult parsed;
+    private final AST[] copies = new AST[BATCH];
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        parsed = compiler.parse(BenchmarkInputs.forSize(size));
+        if (!compiler.check(parsed).isSuccess()) {
+            throw new IllegalStateException("Benchmark input does not check");
+        }
+    }
+
+    // De evaluator past de boom aan: elke aanroep verse kopieen.
+    @Setup(Level.Invocation)
+    public void freshCopies() {
+        for (int i = 0; i < BATCH; i++) {
+            copies[i] = compiler.check(parsed).getAST();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void evaluate(Blackhole bh) {
+        for (AST ast : copies) {
+            new Evaluator().apply(ast);
+            bh.consume(ast);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.compiler.ParseResult;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checker, evaluator and generator on generated stylesheets, to see how they scale with the
+ * number of rules, the if/else nesting depth and the size of the expressions.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="ScalingBenchmarks -p rules=10000 -p ifDepth=0,8"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingBenchmarks {
+
+    @Param({"1000", "10000", "100000"})
+    public int rules;
+
+    @Param({"0", "4", "8"})
+    public int ifDepth;
+
+    @Param({"1", "8", "32"})
+    public int expressionSize;
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+
+    private ParseResult parsed;
+    private AST checkedAst;
+    private AST transformedAst;
+    private AST evaluatorInput;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        String source = new StylesheetGenerator()
+                .seed(BenchmarkInputs.SEED)
+                .rules(rules)
+                .ifDepth(ifDepth)
+                .expressionSize(expressionSize)
+                .generate()
+                .getSource();
+        parsed = compiler.parse(source);
+        CheckResult checked = compiler.check(parsed);
+        if (!checked.isSuccess()) {
+            throw new IllegalStateException("Generated input does not check: " + checked.getErrors());
+        }
+        checkedAst = checked.getAST();
+        transformedAst = compiler.transform(checked).getAST();
+    }
+
+    @Setup(Level.Invocation)
+    public void freshEvaluatorInput() {
+        evaluatorInput = compiler.check(parsed).getAST();
+    }
+
+    @Benchmark
+    public AST check() {
+        new Checker().check(checkedAst);
+        return checkedAst;
+    }
+
+    @Benchmark
+    public AST evaluate() {
+        new Evaluator().apply(evaluatorInput);
+        return evaluatorInput;
+    }
+
+    @Benchmark
+    public String generate() {
+        return new Generator().generate(transformedAst);
+    }
+}
@@ -0,0 +1,178 @@
+package nl.han.ica.icss.benchmarks;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.CssResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.compiler.ParseResult;
+import nl.han.ica.icss.compiler.StylesheetTemplate;
+import nl.han.ica.icss.compiler.TransformResult;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.FastICSSLexer;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per compiler stage. Every stage gets the output of the previous stages,
+ * prepared once in the setup, so only the stage itself is measured.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="StageBenchmarks -p size=small,medium"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageBenchmarks {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+
+    private String source;
+    private List<? extends Token> tokens;
+    private ParseTree parseTree;
+    private ParseResult parsed;
+    private AST checkedAst;
+    private AST transformedAst;
+    private StylesheetTemplate template;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        source = BenchmarkInputs.forSize(size);
+
+        CommonTokenStream stream = new CommonTokenStream(new ICSSLexer(CharStreams.fromString(source)));
+        stream.fill();
+        tokens = stream.getTokens();
+        parseTree = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens))).stylesheet();
+
+        parsed = compiler.parse(source);
+        CheckResult checked = compiler.check(parsed);
+        if (!checked.isSuccess()) {
+            throw new IllegalStateException("Benchmark input does not check: " + checked.getErrors());
+        }
+        checkedAst = checked.getAST();
+        transformedAst = compiler.transform(checked).getAST();
+        template = compiler.template(checked);
+    }
+
+    /**
+     * A fresh checked AST per invocation, since the evaluator changes the tree. A state of its
+     * own, so only {@link #evaluate} pays for the copy. For the small input the per-invocation
+     * setup outweighs the work; use {@link EvaluatorBenchmarks} there.
+     */
+    @State(Scope.Thread)
+    public static class EvaluatorInput {
+
+        AST ast;
+
+        @Setup(Level.Invocation)
+        public void fresh(StageBenchmarks stages) {
+            ast = stages.compiler.check(stages.parsed).getAST();
+        }
+    }
+
+    @Benchmark
+    public int lex() {
+        CommonTokenStream stream = new CommonTokenStream(new ICSSLexer(CharStreams.fromString(source)));
+        stream.fill();
+        return stream.size();
+    }
+
+    @Benchmark
+    public int lexFast() {
+        CommonTokenStream stream = new CommonTokenStream(new FastICSSLexer(source.toCharArray()));
+        stream.fill();
+        return stream.size();
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        return new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens))).stylesheet();
+    }
+
+    // De eerste (en bij geldige invoer enige) ronde van ICSSCompiler.parse.
+    @Benchmark
+    public ParseTree parseSll() {
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        return parser.stylesheet();
+    }
+
+    // Parse en AST in een keer, zonder parse tree (zoals ICSSCompiler.parse); te vergelijken met parseSll + buildAst.
+    @Benchmark
+    public AST parseSllToAst() {
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        ASTListener listener = new ASTListener();
+        listener.attach(parser);
+        parser.stylesheet();
+        return listener.getAST();
+    }
+
+    @Benchmark
+    public AST buildAst() {
+        ASTListener listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, parseTree);
+        return listener.getAST();
+    }
+
+    @Benchmark
+    public AST check() {
+        new Checker().check(checkedAst);
+        return checkedAst;
+    }
+
+    @Benchmark
+    public AST evaluate(EvaluatorInput input) {
+        new Evaluator().apply(input.ast);
+        return input.ast;
+    }
+
+    // Niet-destructief: geen verse kopie nodig.
+    @Benchmark
+    public TransformResult evaluateTemplate() {
+        return template.transform(Collections.emptyMap());
+    }
+
+    @Benchmark
+    public String generate() {
+        return new Generator().generate(transformedAst);
+    }
+
+    @Benchmark
+    public CssResult endToEnd() {
+        return compiler.compile(source);
+    }
+}
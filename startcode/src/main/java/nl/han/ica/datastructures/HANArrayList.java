@@ -0,0 +1,124 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * IHANLinkedList on a growable ring buffer (a deque): addFirst, removeFirst, getFirst and
+ * get(i) are O(1); insert and delete shift the elements on the shorter side.
+ */
+public class HANArrayList<T> implements IHANLinkedList<T> {
+
+    private Object[] elementen;
+    private int kop;     // fysieke index van positie 0
+    private int grootte;
+
+    public HANArrayList() {
+        this(16);
+    }
+
+    public HANArrayList(int initialCapacity) {
+        elementen = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void addFirst(T waarde) {
+        if (grootte == elementen.length) groei();
+        kop = (kop - 1 + elementen.length) % elementen.length;
+        elementen[kop] = waarde;
+        grootte++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elementen, null);
+        kop = grootte = 0;
+    }
+
+    @Override
+    public void insert(int index, T waarde) {
+        if (index < 0 || index > grootte) {
+            throw new IndexOutOfBoundsException("Index " + index + " buiten bereik [0.." + grootte + "]");
+        }
+        if (grootte == elementen.length) groei();
+        if (index < grootte / 2) {
+            // Voorste deel een plek naar voren schuiven.
+            kop = (kop - 1 + elementen.length) % elementen.length;
+            for (int i = 0; i < index; i++) {
+                elementen[fysiek(i)] = elementen[fysiek(i + 1)];
+            }
+        } else {
+            // Achterste deel een plek naar achteren schuiven.
+            for (int i = grootte; i > index; i--) {
+                elementen[fysiek(i)] = elementen[fysiek(i - 1)];
+            }
+        }
+        elementen[fysiek(index)] = waarde;
+        grootte++;
+    }
+
+    @Override
+    public void delete(int positie) {
+        controleerIndex(positie);
+        if (positie < grootte / 2) {
+            for (int i = positie; i > 0; i--) {
+                elementen[fysiek(i)] = elementen[fysiek(i - 1)];
+            }
+            elementen[kop] = null;
+            kop = (kop + 1) % elementen.length;
+        } else {
+            for (int i = positie; i < grootte - 1; i++) {
+                elementen[fysiek(i)] = elementen[fysiek(i + 1)];
+            }
+            elementen[fysiek(grootte - 1)] = null;
+        }
+        grootte--;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int positie) {
+        controleerIndex(positie);
+        return (T) elementen[fysiek(positie)];
+    }
+
+    @Override
+    public void removeFirst() {
+        if (grootte == 0) throw new NoSuchElementException("Lijst is leeg.");
+        elementen[kop] = null;
+        kop = (kop + 1) % elementen.length;
+        grootte--;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getFirst() {
+        if (grootte == 0) throw new NoSuchElementException("Lijst is leeg.");
+        return (T) elementen[kop];
+    }
+
+    @Override
+    public int getSize() {
+        return grootte;
+    }
+
+    // ---------- hulpfuncties ----------
+    private int fysiek(int positie) {
+        return (kop + positie) % elementen.length;
+    }
+
+    private void groei() {
+        Object[] nieuw = new Object[elementen.length * 2];
+        for (int i = 0; i < grootte; i++) {
+            nieuw[i] = elementen[fysiek(i)];
+        }
+        elementen = nieuw;
+        kop = 0;
+    }
+
+    private void controleerIndex(int index) {
+        if (index < 0 || index >= grootte) {
+            throw new IndexOutOfBoundsException("Index " + index + " buiten bereik [0.." + (grootte - 1) + "]");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Queue on a growable ring buffer: enqueue and dequeue are O(1) without a node per element.
+ */
+public class HANArrayQueue<T> implements IHANQueue<T> {
+
+    private Object[] elementen;
+    private int kop;     // index van het voorste element
+    private int grootte;
+
+    public HANArrayQueue() {
+        this(16);
+    }
+
+    public HANArrayQueue(int initialCapacity) {
+        elementen = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elementen, null);
+        kop = grootte = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return grootte == 0;
+    }
+
+    @Override
+    public void enqueue(T waarde) {
+        if (grootte == elementen.length) {
+            groei();
+        }
+        elementen[(kop + grootte) % elementen.length] = waarde;
+        grootte++;
+    }
+
+    @Override
+    public T dequeue() {
+        T waarde = peek();
+        elementen[kop] = null;
+        kop = (kop + 1) % elementen.length;
+        grootte--;
+        return waarde;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (grootte == 0) throw new NoSuchElementException("Queue is leeg.");
+        return (T) elementen[kop];
+    }
+
+    @Override
+    public int getSize() {
+        return grootte;
+    }
+
+    // Dubbel zo groot, en meteen "rechttrekken" zodat de kop weer op 0 staat.
+    private void groei() {
+        Object[] nieuw = new Object[elementen.length * 2];
+        for (int i = 0; i < grootte; i++) {
+            nieuw[i] = elementen[(kop + i) % elementen.length];
+        }
+        elementen = nieuw;
+        kop = 0;
+    }
+}
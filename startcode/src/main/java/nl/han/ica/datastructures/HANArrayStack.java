@@ -0,0 +1,47 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Stack on a growable array: no node object per element.
+ */
+public class HANArrayStack<T> implements IHANStack<T> {
+
+    private Object[] elementen;
+    private int grootte;
+
+    public HANArrayStack() {
+        this(16);
+    }
+
+    public HANArrayStack(int initialCapacity) {
+        elementen = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void push(T waarde) {
+        if (grootte == elementen.length) {
+            elementen = Arrays.copyOf(elementen, grootte * 2);
+        }
+        elementen[grootte++] = waarde;
+    }
+
+    @Override
+    public T pop() {
+        T boven = peek();
+        elementen[--grootte] = null; // niet vasthouden voor de GC
+        return boven;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (grootte == 0) throw new NoSuchElementException("Stack is leeg.");
+        return (T) elementen[grootte - 1];
+    }
+
+    public int getSize() {
+        return grootte;
+    }
+}
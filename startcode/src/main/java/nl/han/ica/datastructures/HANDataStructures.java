@@ -0,0 +1,44 @@
+package nl.han.ica.datastructures;
+
+/**
+ * Factory for the HAN data structures, to choose between the linked and the array-backed versions.
+ * The array-backed ones allocate nothing per element and are the default.
+ */
+public final class HANDataStructures {
+
+    public enum Implementation {
+        /** One node object per element (HANStack, HANQueue, HANLinkedList). */
+        LINKED,
+        /** Growable arrays and ring buffers (HANArrayStack, HANArrayQueue, HANArrayList). */
+        ARRAY
+    }
+
+    public static final Implementation DEFAULT = Implementation.ARRAY;
+
+    private HANDataStructures() {
+    }
+
+    public static <T> IHANStack<T> newStack() {
+        return newStack(DEFAULT);
+    }
+
+    public static <T> IHANStack<T> newStack(Implementation implementation) {
+        return implementation == Implementation.LINKED ? new HANStack<>() : new HANArrayStack<>();
+    }
+
+    public static <T> IHANQueue<T> newQueue() {
+        return newQueue(DEFAULT);
+    }
+
+    public static <T> IHANQueue<T> newQueue(Implementation implementation) {
+        return implementation == Implementation.LINKED ? new HANQueue<>() : new HANArrayQueue<>();
+    }
+
+    public static <T> IHANLinkedList<T> newLinkedList() {
+        return newLinkedList(DEFAULT);
+    }
+
+    public static <T> IHANLinkedList<T> newLinkedList(Implementation implementation) {
+        return implementation == Implementation.LINKED ? new HANLinkedList<>() : new HANArrayList<>();
+    }
+}
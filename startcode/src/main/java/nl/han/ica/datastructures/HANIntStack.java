@@ -0,0 +1,58 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Stack of primitive ints, for hot paths where HANStack&lt;Integer&gt; would box every value.
+ */
+public class HANIntStack {
+
+    private int[] elementen;
+    private int grootte;
+
+    public HANIntStack() {
+        this(16);
+    }
+
+    public HANIntStack(int initialCapacity) {
+        elementen = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * pushes value to the top of the stack
+     * @param value value to push
+     */
+    public void push(int value) {
+        if (grootte == elementen.length) {
+            elementen = Arrays.copyOf(elementen, grootte * 2);
+        }
+        elementen[grootte++] = value;
+    }
+
+    /**
+     * Pops (and removes) value at top of stack
+     * @return popped value
+     */
+    public int pop() {
+        if (grootte == 0) throw new NoSuchElementException("Stack is leeg.");
+        return elementen[--grootte];
+    }
+
+    /**
+     * Peeks at the top of the stack. Does not remove anything
+     * @return value at the top of the stack
+     */
+    public int peek() {
+        if (grootte == 0) throw new NoSuchElementException("Stack is leeg.");
+        return elementen[grootte - 1];
+    }
+
+    public boolean isEmpty() {
+        return grootte == 0;
+    }
+
+    public int getSize() {
+        return grootte;
+    }
+}
@@ -0,0 +1,106 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Symbol table for nested scopes with O(1) push, define and lookup.
+ *
+ * Names are interned to an int id once. All bindings live in flat arrays in definition order;
+ * a scope is a mark in that array. Per name there is the index of its newest binding, and every
+ * binding remembers the binding it hides, so popping a scope only restores the names it defined.
+ */
+public class HANSymbolTable<V> implements IHANSymbolTable<V> {
+
+    private static final int GEEN = -1;
+
+    // Interning: naam -> id, en per id de index van de nieuwste binding (GEEN als die er niet is).
+    private final HashMap<String, Integer> naamIds = new HashMap<>();
+    private int[] nieuwsteBinding = new int[16];
+
+    // Bindingen, plat achter elkaar; binding i hoort bij naam bindingNaam[i].
+    private int[] bindingNaam = new int[32];
+    private int[] verborgenBinding = new int[32];
+    private Object[] bindingWaarde = new Object[32];
+    private int aantalBindingen = 0;
+
+    // Per open scope de index van de eerste binding in die scope.
+    private int[] scopeBegin = new int[8];
+    private int diepte = 0;
+
+    @Override
+    public void pushScope() {
+        if (diepte == scopeBegin.length) {
+            scopeBegin = Arrays.copyOf(scopeBegin, diepte * 2);
+        }
+        scopeBegin[diepte++] = aantalBindingen;
+    }
+
+    @Override
+    public void popScope() {
+        if (diepte == 0) throw new NoSuchElementException("Geen open scope.");
+        int begin = scopeBegin[--diepte];
+        for (int i = aantalBindingen - 1; i >= begin; i--) {
+            nieuwsteBinding[bindingNaam[i]] = verborgenBinding[i];
+            bindingWaarde[i] = null; // niet vasthouden voor de GC
+        }
+        aantalBindingen = begin;
+    }
+
+    @Override
+    public void define(String naam, V waarde) {
+        if (diepte == 0) throw new NoSuchElementException("Geen open scope.");
+        int id = idVan(naam);
+        int huidige = nieuwsteBinding[id];
+        if (huidige >= scopeBegin[diepte - 1]) {
+            // Al gedefinieerd in deze scope: gewoon overschrijven.
+            bindingWaarde[huidige] = waarde;
+            return;
+        }
+        if (aantalBindingen == bindingNaam.length) {
+            int nieuw = aantalBindingen * 2;
+            bindingNaam = Arrays.copyOf(bindingNaam, nieuw);
+            verborgenBinding = Arrays.copyOf(verborgenBinding, nieuw);
+            bindingWaarde = Arrays.copyOf(bindingWaarde, nieuw);
+        }
+        bindingNaam[aantalBindingen] = id;
+        verborgenBinding[aantalBindingen] = huidige;
+        bindingWaarde[aantalBindingen] = waarde;
+        nieuwsteBinding[id] = aantalBindingen++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V lookup(String naam) {
+        Integer id = naamIds.get(naam);
+        if (id == null) return null;
+        int binding = nieuwsteBinding[id];
+        return binding == GEEN ? null : (V) bindingWaarde[binding];
+    }
+
+    @Override
+    public int getDepth() {
+        return diepte;
+    }
+
+    @Override
+    public void clear() {
+        while (diepte > 0) {
+            popScope();
+        }
+    }
+
+    // ---------- hulpfuncties ----------
+    private int idVan(String naam) {
+        Integer id = naamIds.get(naam);
+        if (id != null) return id;
+        int nieuwId = naamIds.size();
+        if (nieuwId == nieuwsteBinding.length) {
+            nieuwsteBinding = Arrays.copyOf(nieuwsteBinding, nieuwId * 2);
+        }
+        nieuwsteBinding[nieuwId] = GEEN;
+        naamIds.put(naam, nieuwId);
+        return nieuwId;
+    }
+}
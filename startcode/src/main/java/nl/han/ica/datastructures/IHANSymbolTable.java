@@ -0,0 +1,39 @@
+package nl.han.ica.datastructures;
+
+public interface IHANSymbolTable<V> {
+    /**
+     * Opens a new, innermost scope
+     */
+    void pushScope();
+
+    /**
+     * Closes the innermost scope; everything defined in it is forgotten
+     */
+    void popScope();
+
+    /**
+     * Binds name to value in the innermost scope, replacing an earlier binding in that same scope.
+     * Bindings of the same name in outer scopes are hidden until this scope is popped.
+     * @param name variable name
+     * @param value value to bind
+     */
+    void define(String name, V value);
+
+    /**
+     * Looks up the binding of name in the innermost scope that has one
+     * @param name variable name
+     * @return the value, or null when name is not defined in any open scope
+     */
+    V lookup(String name);
+
+    /**
+     * Determines the number of open scopes
+     * @return number of open scopes
+     */
+    int getDepth();
+
+    /**
+     * Closes all scopes
+     */
+    void clear();
+}
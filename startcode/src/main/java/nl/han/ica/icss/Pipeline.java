@@ -3,29 +3,44 @@ package nl.han.ica.icss;
 import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.checker.Checker;
 import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.compiler.IncrementalParser;
+import nl.han.ica.icss.compiler.ParseResult;
+import nl.han.ica.icss.events.CheckEvent;
+import nl.han.ica.icss.events.GenerateEvent;
+import nl.han.ica.icss.events.TransformEvent;
 import nl.han.ica.icss.generator.Generator;
-import nl.han.ica.icss.parser.ASTListener;
-import nl.han.ica.icss.parser.ICSSLexer;
-import nl.han.ica.icss.parser.ICSSParser;
 import nl.han.ica.icss.transforms.Evaluator;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.atn.ATNConfigSet;
-import org.antlr.v4.runtime.dfa.DFA;
-import org.antlr.v4.runtime.misc.ParseCancellationException;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import nl.han.ica.icss.transforms.IfOptimizer;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 
-public class Pipeline implements ANTLRErrorListener {
+/**
+ * Stateful, single-document wrapper around the compiler as used by the GUI: parse and check work
+ * on the same AST in place, transform builds a new AST next to it (see getCheckedAST()).
+ * Use {@link ICSSCompiler} when compiling from several threads.
+ * Re-parsing an edited document only re-parses the top-level statements that changed.
+ */
+public class Pipeline {
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+    private final IncrementalParser parser = new IncrementalParser(compiler);
 
     private AST ast;
+    private AST checkedAst;
     private boolean parsed = false;
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    // Bron en lengte van de invoer voor de JFR-events, zoals de parser die gaf.
+    private String bron;
+    private long bronGrootte;
 
     public Pipeline() {
         errors = new ArrayList<>();
@@ -34,6 +49,13 @@ public class Pipeline implements ANTLRErrorListener {
     public AST getAST() {
         return ast;
     }
+
+    /**
+     * The AST as it was before transform; the same as getAST() until then.
+     */
+    public AST getCheckedAST() {
+        return checkedAst;
+    }
     public List<String> getErrors() {
         return errors;
     }
@@ -48,38 +70,35 @@ public class Pipeline implements ANTLRErrorListener {
     }
 
     public void parseString(String input) {
+        naParse(parser.parse(input));
+    }
 
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(this);
-        errors.clear();
-        try {
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(this);
-
-            ParseTree parseTree = parser.stylesheet();
+    /**
+     * Parses a UTF-8 file without reading it into a String first; large files are memory-mapped
+     * (see {@link ICSSCompiler#parse(Path)}).
+     */
+    public void parse(Path file) throws IOException {
+        parser.reset();
+        naParse(compiler.parse(file));
+    }
 
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
+    /**
+     * Parses the rest of the channel as UTF-8; the channel is not closed.
+     */
+    public void parse(ReadableByteChannel in) throws IOException {
+        parser.reset();
+        naParse(compiler.parse(in));
+    }
 
-            this.ast = listener.getAST();
+    private void naParse(ParseResult result) {
+        errors.clear();
 
-        } catch (RecognitionException e) {
-            this.ast = new AST();
-            errors.add(e.getMessage());
+        this.ast = result.getAST();
+        this.checkedAst = ast;
+        this.bron = result.getSourceId();
+        this.bronGrootte = result.getSourceSize();
+        errors.addAll(result.getErrors());
 
-        } catch (ParseCancellationException e) {
-            this.ast = new AST();
-            errors.add("Syntax error");
-        }
         parsed = errors.isEmpty();
         checked = transformed = false;
     }
@@ -87,7 +106,10 @@ public class Pipeline implements ANTLRErrorListener {
             if(ast == null)
                 return false;
 
+            CheckEvent event = new CheckEvent();
+            event.begin();
            (new Checker()).check(this.ast);
+            event.end();
 
             ArrayList<SemanticError> errors = this.ast.getErrors();
             if (!errors.isEmpty()) {
@@ -96,6 +118,8 @@ public class Pipeline implements ANTLRErrorListener {
                 }
             }
 
+            event.sourceSize = bronGrootte;
+            event.commitFor(bron, ast, errors.size());
             checked = errors.isEmpty();
             transformed = false;
             return errors.isEmpty();
@@ -109,35 +133,37 @@ public class Pipeline implements ANTLRErrorListener {
         if(ast == null)
             return;
 
-        (new Evaluator()).apply(ast);
-
+        // Nieuwe boom; de gecheckte boom blijft heel, dus de parser mag zijn knopen blijven hergebruiken.
+        TransformEvent event = new TransformEvent();
+        event.begin();
+        ast = new Evaluator().evaluate(new IfOptimizer().optimize(checkedAst), Collections.emptyMap());
+        event.end();
+        event.sourceSize = bronGrootte;
+        event.commitFor(bron, ast, errors.size());
 
         transformed = errors.isEmpty();
     }
     public String generate() {
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
         Generator generator = new Generator();
-        return generator.generate(ast);
-    }
-
-    //Catch ANTLR errors
-    @Override
-    public void reportAmbiguity(Parser arg0, DFA arg1, int arg2, int arg3,
-                                boolean arg4, BitSet arg5, ATNConfigSet arg6) {
-    }
-
-    @Override
-    public void reportAttemptingFullContext(Parser arg0, DFA arg1, int arg2,
-                                            int arg3, BitSet arg4, ATNConfigSet arg5) {
-    }
-
-    @Override
-    public void reportContextSensitivity(Parser arg0, DFA arg1, int arg2,
-                                         int arg3, int arg4, ATNConfigSet arg5) {
+        String css = generator.generate(ast);
+        event.end();
+        event.outputSize = css.length();
+        event.sourceSize = bronGrootte;
+        event.commitFor(bron, ast, errors.size());
+        return css;
     }
 
-    @Override
-    public void syntaxError(Recognizer<?, ?> arg0, Object arg1, int arg2,
-                            int arg3, String arg4, RecognitionException arg5) {
-        errors.add("Syntax error: " + arg4);
+    /**
+     * Streams the CSS to out instead of returning it; out is not flushed or closed.
+     */
+    public void generate(Writer out) throws IOException {
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
+        new Generator().generate(ast, out);
+        event.end();
+        event.sourceSize = bronGrootte;
+        event.commitFor(bron, ast, errors.size());
     }
 }
@@ -32,8 +32,11 @@ public class AST {
 		if (node.hasError()) {
 			errors.add(node.getError());
 		}
-		for (ASTNode child : node.getChildren()) {
-			collectErrors(errors, child);
+		for (int i = 0; i < node.childCount(); i++) {
+			ASTNode child = node.childAt(i);
+			if (child != null) {
+				collectErrors(errors, child);
+			}
 		}
 	}
 
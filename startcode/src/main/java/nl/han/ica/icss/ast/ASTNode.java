@@ -3,7 +3,6 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class ASTNode {
 
@@ -17,6 +16,14 @@ public class ASTNode {
         return "ASTNode";
     }
 
+    /*
+     Calls the visitor method for the concrete class of this node.
+     Every node class overrides this; see ASTVisitor.
+     */
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitNode(this);
+    }
+
     /*
      Different AST nodes use different attributes to store their children.
      This method provides a unified interface.
@@ -24,6 +31,23 @@ public class ASTNode {
     public ArrayList<ASTNode> getChildren() {
         return new ArrayList<>();
     }
+
+    /*
+     Allocation-free access to the same children, in the same order as getChildren().
+     Passes that visit every node should use these instead:
+       for (int i = 0; i < node.childCount(); i++) { ASTNode child = node.childAt(i); ... }
+     */
+    public int childCount() {
+        return 0;
+    }
+
+    public ASTNode childAt(int index) {
+        throw noChildAt(index);
+    }
+
+    protected IndexOutOfBoundsException noChildAt(int index) {
+        return new IndexOutOfBoundsException("Index " + index + " out of bounds for " + childCount() + " children");
+    }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -50,6 +74,10 @@ public class ASTNode {
         return error != null;
     }
 
+    public void clearError() {
+        this.error = null;
+    }
+
 
 
 	@Override
@@ -62,9 +90,9 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0; i < childCount(); i++) {
+			childAt(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
@@ -73,12 +101,11 @@ public class ASTNode {
         if(! (o instanceof ASTNode))
             return false;
         //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
+        ASTNode other = (ASTNode) o;
+        if(other.childCount() != this.childCount())
             return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
+        for(int i = 0; i < this.childCount(); i++ ) {
+            if(!this.childAt(i).equals(other.childAt(i))) {
                 return false;
             }
         }
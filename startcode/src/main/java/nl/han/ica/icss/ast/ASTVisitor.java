@@ -0,0 +1,123 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/*
+ * Visitor over the AST, called through ASTNode.accept(visitor) (double dispatch, no instanceof chains).
+ *
+ * Every method has a default that falls back to the method for the more general kind of node:
+ * a PixelLiteral goes to visitLiteral, then visitExpression and finally visitNode. A visitor
+ * only overrides the methods it is interested in.
+ */
+public interface ASTVisitor<R> {
+
+    default R visitNode(ASTNode node) {
+        return null;
+    }
+
+    default R visitStylesheet(Stylesheet node) {
+        return visitNode(node);
+    }
+
+    default R visitStylerule(Stylerule node) {
+        return visitNode(node);
+    }
+
+    default R visitDeclaration(Declaration node) {
+        return visitNode(node);
+    }
+
+    default R visitPropertyName(PropertyName node) {
+        return visitNode(node);
+    }
+
+    default R visitVariableAssignment(VariableAssignment node) {
+        return visitNode(node);
+    }
+
+    default R visitIfClause(IfClause node) {
+        return visitNode(node);
+    }
+
+    default R visitElseClause(ElseClause node) {
+        return visitNode(node);
+    }
+
+    // Selectors
+
+    default R visitSelector(Selector node) {
+        return visitNode(node);
+    }
+
+    default R visitIdSelector(IdSelector node) {
+        return visitSelector(node);
+    }
+
+    default R visitClassSelector(ClassSelector node) {
+        return visitSelector(node);
+    }
+
+    default R visitTagSelector(TagSelector node) {
+        return visitSelector(node);
+    }
+
+    // Expressions
+
+    default R visitExpression(Expression node) {
+        return visitNode(node);
+    }
+
+    default R visitVariableReference(VariableReference node) {
+        return visitExpression(node);
+    }
+
+    default R visitLiteral(Literal node) {
+        return visitExpression(node);
+    }
+
+    default R visitBoolLiteral(BoolLiteral node) {
+        return visitLiteral(node);
+    }
+
+    default R visitColorLiteral(ColorLiteral node) {
+        return visitLiteral(node);
+    }
+
+    default R visitPercentageLiteral(PercentageLiteral node) {
+        return visitLiteral(node);
+    }
+
+    default R visitPixelLiteral(PixelLiteral node) {
+        return visitLiteral(node);
+    }
+
+    default R visitScalarLiteral(ScalarLiteral node) {
+        return visitLiteral(node);
+    }
+
+    default R visitOperation(Operation node) {
+        return visitExpression(node);
+    }
+
+    default R visitAddOperation(AddOperation node) {
+        return visitOperation(node);
+    }
+
+    default R visitSubtractOperation(SubtractOperation node) {
+        return visitOperation(node);
+    }
+
+    default R visitMultiplyOperation(MultiplyOperation node) {
+        return visitOperation(node);
+    }
+}
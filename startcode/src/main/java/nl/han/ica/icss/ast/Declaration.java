@@ -22,6 +22,11 @@ public class Declaration extends ASTNode {
 	    return "Declaration";
 	}
 
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitDeclaration(this);
+	}
+
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 
@@ -32,6 +37,20 @@ public class Declaration extends ASTNode {
 		    children.add(expression);
 		return children;
 	}
+	@Override
+	public int childCount() {
+		return (property != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+
+	@Override
+	public ASTNode childAt(int index) {
+		if (index == 0 && property != null)
+			return property;
+		if (index == childCount() - 1 && expression != null)
+			return expression;
+		throw noChildAt(index);
+	}
+
 	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(child instanceof PropertyName) {
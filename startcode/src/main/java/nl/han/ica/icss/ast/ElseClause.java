@@ -18,6 +18,11 @@ public class ElseClause extends ASTNode{
     public String getNodeLabel() {
         return "Else_Clause";
     }
+
+    @Override
+    public <R> R accept(ASTVisitor<R> visitor) {
+        return visitor.visitElseClause(this);
+    }
     @Override
     public ArrayList<ASTNode> getChildren() {
         ArrayList<ASTNode> children = new ArrayList<>();
@@ -26,6 +31,16 @@ public class ElseClause extends ASTNode{
         return children;
     }
 
+    @Override
+    public int childCount() {
+        return body.size();
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        return body.get(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
 
@@ -1,3 +1,23 @@
 package nl.han.ica.icss.ast;
 
-public abstract class Expression extends ASTNode { }
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+public abstract class Expression extends ASTNode {
+
+    /*
+     Annotations set by the checker. inferredType is null until the node has been checked.
+     When the subtree only contains literals, constant is true and constantValue holds the
+     folded value (see PrimitiveValues), so later stages do not have to walk it again.
+     They are not part of equals: they describe the node, they are not the node.
+     */
+    public ExpressionType inferredType;
+    public boolean constant;
+    public long constantValue;
+
+    /*
+     Slot for a compiled form of this expression, owned by whichever pass fills it (the
+     evaluator keeps its ExpressionProgram here). It only depends on the subtree below this
+     node, so it stays valid as long as that subtree is not changed. Not part of equals.
+     */
+    public Object compiled;
+}
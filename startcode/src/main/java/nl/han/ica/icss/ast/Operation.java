@@ -17,6 +17,20 @@ public abstract class Operation extends Expression {
         return children;
     }
 
+    @Override
+    public int childCount() {
+        return (lhs != null ? 1 : 0) + (rhs != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode childAt(int index) {
+        if (index == 0 && lhs != null)
+            return lhs;
+        if (index == childCount() - 1 && rhs != null)
+            return rhs;
+        throw noChildAt(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
         if(lhs == null) {
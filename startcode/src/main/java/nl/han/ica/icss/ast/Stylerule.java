@@ -21,6 +21,11 @@ public class Stylerule extends ASTNode {
 	public String getNodeLabel() {
 		return "Stylerule";
 	}
+
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitStylerule(this);
+	}
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 		ArrayList<ASTNode> children = new ArrayList<>();
@@ -30,6 +35,19 @@ public class Stylerule extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int childCount() {
+		return selectors.size() + body.size();
+	}
+
+	@Override
+	public ASTNode childAt(int index) {
+		if (index < selectors.size()) {
+			return selectors.get(index);
+		}
+		return body.get(index - selectors.size());
+	}
+
     @Override
     public ASTNode addChild(ASTNode child) {
 		if(child instanceof Selector)
@@ -27,11 +27,26 @@ public class Stylesheet extends ASTNode {
 		return "Stylesheet";
 	}
 
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitStylesheet(this);
+	}
+
 	@Override
 	public ArrayList<ASTNode> getChildren() {
 		return this.body;
 	}
 
+	@Override
+	public int childCount() {
+		return body.size();
+	}
+
+	@Override
+	public ASTNode childAt(int index) {
+		return body.get(index);
+	}
+
 	@Override
 	public ASTNode addChild(ASTNode child) {
 	    	body.add(child);
@@ -17,6 +17,11 @@ public class VariableAssignment extends ASTNode {
 		return "VariableAssignment (" + name.name + ")";
 	}
 
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitVariableAssignment(this);
+	}
+
 	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(name == null) {
@@ -39,6 +44,20 @@ public class VariableAssignment extends ASTNode {
 		return children;
 	}
 
+	@Override
+	public int childCount() {
+		return (name != null ? 1 : 0) + (expression != null ? 1 : 0);
+	}
+
+	@Override
+	public ASTNode childAt(int index) {
+		if (index == 0 && name != null)
+			return name;
+		if (index == childCount() - 1 && expression != null)
+			return expression;
+		throw noChildAt(index);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
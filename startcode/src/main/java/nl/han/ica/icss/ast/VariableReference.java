@@ -16,6 +16,11 @@ public class VariableReference extends Expression {
 		return "VariableReference (" + name + ")";
 	}
 
+	@Override
+	public <R> R accept(ASTVisitor<R> visitor) {
+		return visitor.visitVariableReference(this);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
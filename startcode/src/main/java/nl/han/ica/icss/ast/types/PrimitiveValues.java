@@ -0,0 +1,115 @@
+package nl.han.ica.icss.ast.types;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.*;
+
+/*
+ Arithmetic on unboxed values: an ExpressionType as unit tag plus a long.
+ Colors are packed as 0xRRGGBB, booleans as 0 or 1. Numbers wrap like the int
+ in the literal classes, so results match what the literals themselves would give.
+ Nothing here allocates, except toLiteral.
+ */
+public final class PrimitiveValues {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private PrimitiveValues() {
+    }
+
+    /*
+     "#rrggbb" to 0xRRGGBB. Anything that is not a valid color becomes black.
+     */
+    public static long packColor(String color) {
+        if (color == null || color.length() != 7 || color.charAt(0) != '#') return 0;
+        long packed = 0;
+        for (int i = 1; i < 7; i++) {
+            int digit = Character.digit(color.charAt(i), 16);
+            if (digit < 0) return 0;
+            packed = (packed << 4) | digit;
+        }
+        return packed;
+    }
+
+    /*
+     0xRRGGBB back to "#rrggbb", always in lower case like the lexer accepts it.
+     */
+    public static String unpackColor(long color) {
+        char[] chars = new char[7];
+        chars[0] = '#';
+        for (int i = 6; i >= 1; i--) {
+            chars[i] = HEX[(int) (color & 0xF)];
+            color >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /*
+     The unit of a literal. Anything that is not a known literal (including null) counts as scalar.
+     */
+    public static ExpressionType typeOf(Literal literal) {
+        if (literal instanceof PixelLiteral) return ExpressionType.PIXEL;
+        if (literal instanceof PercentageLiteral) return ExpressionType.PERCENTAGE;
+        if (literal instanceof ColorLiteral) return ExpressionType.COLOR;
+        if (literal instanceof BoolLiteral) return ExpressionType.BOOL;
+        return ExpressionType.SCALAR;
+    }
+
+    /*
+     The value of a literal in the representation of this class; 0 for null.
+     */
+    public static long valueOf(Literal literal) {
+        if (literal instanceof PixelLiteral) return ((PixelLiteral) literal).value;
+        if (literal instanceof PercentageLiteral) return ((PercentageLiteral) literal).value;
+        if (literal instanceof ScalarLiteral) return ((ScalarLiteral) literal).value;
+        if (literal instanceof ColorLiteral) return packColor(((ColorLiteral) literal).value);
+        if (literal instanceof BoolLiteral) return ((BoolLiteral) literal).value ? 1 : 0;
+        return 0;
+    }
+
+    /*
+     Result type of + and -: only equal numeric units. Null when not allowed.
+     */
+    public static ExpressionType sumType(ExpressionType lhs, ExpressionType rhs) {
+        if (lhs != rhs) return null;
+        return isNumeric(lhs) ? lhs : null;
+    }
+
+    public static long sum(long a, long b, boolean isAddition) {
+        return (int) (isAddition ? a + b : a - b);
+    }
+
+    /*
+     Result type of *: at least one side scalar, the other side decides the unit. Null when not allowed.
+     */
+    public static ExpressionType productType(ExpressionType lhs, ExpressionType rhs) {
+        if (lhs == ExpressionType.SCALAR && isNumeric(rhs)) return rhs;
+        if (rhs == ExpressionType.SCALAR && isNumeric(lhs)) return lhs;
+        return null;
+    }
+
+    public static long product(long a, long b) {
+        return (int) (a * b);
+    }
+
+    /*
+     Materializes a value as a new literal node.
+     */
+    public static Literal toLiteral(ExpressionType type, long value) {
+        switch (type) {
+            case PIXEL:
+                return new PixelLiteral((int) value);
+            case PERCENTAGE:
+                return new PercentageLiteral((int) value);
+            case COLOR:
+                return new ColorLiteral(unpackColor(value));
+            case BOOL:
+                return new BoolLiteral(value != 0);
+            default:
+                return new ScalarLiteral((int) value);
+        }
+    }
+
+    private static boolean isNumeric(ExpressionType type) {
+        return type == ExpressionType.PIXEL || type == ExpressionType.PERCENTAGE || type == ExpressionType.SCALAR;
+    }
+}
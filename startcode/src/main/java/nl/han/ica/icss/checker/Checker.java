@@ -1,21 +1,24 @@
 package nl.han.ica.icss.checker;
 
-import nl.han.ica.datastructures.HANLinkedList;
-import nl.han.ica.datastructures.IHANLinkedList;
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
 import nl.han.ica.icss.ast.types.ExpressionType;
-import java.util.HashMap;
+import nl.han.ica.icss.ast.types.PrimitiveValues;
 
 public class Checker {
     // Ik hou per scope bij welke variabelen bestaan en welk type ze hebben
-    // Bovenaan (index 0) staat altijd de huidige scope
-    private IHANLinkedList<HashMap<String, ExpressionType>> variabeleTypenPerScope;
+    // De symbol table zoekt altijd eerst in de huidige (binnenste) scope
+    private IHANSymbolTable<ExpressionType> variabeleTypenPerScope;
 
     public void check(AST ast) {
         // Start elke check met een schone stack scopes
-        variabeleTypenPerScope = new HANLinkedList<>();
+        variabeleTypenPerScope = new HANSymbolTable<>();
+
+        // En met een schone lei: knopen kunnen hergebruikt zijn (incrementeel parsen) en nog oude fouten dragen
+        wisFouten(ast.root);
 
         // Globale scope (stylesheet pmuch) eerst openen
         pushScope();
@@ -27,82 +30,101 @@ public class Checker {
         popScope();
     }
 
+    private void wisFouten(ASTNode knoop) {
+        if (knoop == null) return;
+        knoop.clearError();
+        for (int i = 0; i < knoop.childCount(); i++) {
+            wisFouten(knoop.childAt(i));
+        }
+    }
+
     // Scope helpers
 
     // Nieuwe scope erbij (bijv. bij het binnenlopen van een rule of if/else).
     private void pushScope() {
-        variabeleTypenPerScope.addFirst(new HashMap<>());
+        variabeleTypenPerScope.pushScope();
     }
 
     // Klaar met de huidige scope en weer van de stapel af
     private void popScope() {
-        if (variabeleTypenPerScope.getSize() > 0) variabeleTypenPerScope.removeFirst();
-    }
-
-    // Handige getter voor “bovenste” scope.
-    private HashMap<String, ExpressionType> topScope() {
-        return variabeleTypenPerScope.getFirst();
+        if (variabeleTypenPerScope.getDepth() > 0) variabeleTypenPerScope.popScope();
     }
 
     // Zoek het type van een variabele, beginnend bij de meest nabije scope
     private ExpressionType lookupVarType(String name) {
-        for (int i = 0; i < variabeleTypenPerScope.getSize(); i++) {
-            HashMap<String, ExpressionType> s = variabeleTypenPerScope.get(i);
-            if (s.containsKey(name)) return s.get(name);
-        }
-        return ExpressionType.UNDEFINED;
+        ExpressionType type = variabeleTypenPerScope.lookup(name);
+        return type != null ? type : ExpressionType.UNDEFINED;
     }
 
     // Variabele (opnieuw) vastleggen in de huidige scope.
     private void defineVar(String name, ExpressionType type) {
-        topScope().put(name, type);
+        variabeleTypenPerScope.define(name, type);
     }
 
-    // AST-traversal openen/sluiten van scopes
+    // AST-traversal: via de visitor, die opent/sluit scopes en doet de controles per soort knoop
     private void visit(ASTNode huidigKnooppunt) {
         if (huidigKnooppunt == null) return;
+        huidigKnooppunt.accept(controleur);
+    }
 
-        // Scopes openen voorda we de kinderen langs gaan (pre-order)
-        boolean scopeIsGeopendVoorDitKnooppunt = false;
+    // Kinderen bezoeken (diep de boom in)
+    private void visitKinderen(ASTNode knoop) {
+        for (int i = 0; i < knoop.childCount(); i++) {
+            visit(knoop.childAt(i));
+        }
+    }
+
+    private final ASTVisitor<Void> controleur = new ASTVisitor<>() {
+
+        // Alles waar niks te controleren valt: gewoon doorlopen.
+        @Override
+        public Void visitNode(ASTNode knoop) {
+            visitKinderen(knoop);
+            return null;
+        }
 
-        if (huidigKnooppunt instanceof Stylerule) {
+        // In expressies zelf hoeft de traversal niks te doen, dat doet typeOf() al.
+        @Override
+        public Void visitExpression(Expression expressie) {
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule regel) {
             // Elke CSS regel krijgt zijn eigen scope
             pushScope();
-            scopeIsGeopendVoorDitKnooppunt = true;
+            visitKinderen(regel);
+            popScope();
+            return null;
+        }
 
-        } else if (huidigKnooppunt instanceof IfClause) {
+        @Override
+        public Void visitIfClause(IfClause ifKnoop) {
             // If condition moet gewoon boolean zijn, zo niet dan fout op de if-knoop
-            IfClause ifKnoop = (IfClause) huidigKnooppunt;
             ExpressionType typeVanVoorwaarde = typeOf(ifKnoop.conditionalExpression);
             if (typeVanVoorwaarde != ExpressionType.BOOL) {
                 ifKnoop.setError("If-voorwaarde moet van het type boolean zijn (CH05).");
             }
             // Ook if-blokken hebben hun eigen scope.
             pushScope();
-            scopeIsGeopendVoorDitKnooppunt = true;
+            visitKinderen(ifKnoop);
+            popScope();
+            return null;
+        }
 
-        } else if (huidigKnooppunt instanceof ElseClause) {
+        @Override
+        public Void visitElseClause(ElseClause elseKnoop) {
             // Else blokken net zo goed.
             pushScope();
-            scopeIsGeopendVoorDitKnooppunt = true;
+            visitKinderen(elseKnoop);
+            popScope();
+            return null;
         }
 
-        // Node-specifieke checks
-        if (huidigKnooppunt instanceof VariableAssignment) {
-            // eerst type bepalen van de rechterkant
-            VariableAssignment variabeleToekenning = (VariableAssignment) huidigKnooppunt;
-
-            // In deze AST is de waarde meestal het laatste kind
-            Expression rechterZijdeWaarde = null;
-            if (!variabeleToekenning.getChildren().isEmpty()) {
-                ASTNode laatsteKind =
-                        variabeleToekenning.getChildren().get(variabeleToekenning.getChildren().size() - 1);
-                if (laatsteKind instanceof Expression) {
-                    rechterZijdeWaarde = (Expression) laatsteKind;
-                }
-            }
-
-            ExpressionType typeVanRechterZijde = typeOf(rechterZijdeWaarde);
+        @Override
+        public Void visitVariableAssignment(VariableAssignment variabeleToekenning) {
+            // eerst type bepalen van de rechterkant, die staat gewoon in het expression-veld
+            ExpressionType typeVanRechterZijde = typeOf(variabeleToekenning.expression);
 
             // Geen type? Dan mis ik een definitie of klopt er iets niet in de expressie die ik heb neergezet
             if (typeVanRechterZijde == ExpressionType.UNDEFINED) {
@@ -126,99 +148,133 @@ public class Checker {
             } else {
                 defineVar(varNaam, typeVanRechterZijde);
             }
+            return null;
+        }
 
-        } else if (huidigKnooppunt instanceof Declaration) {
-            Declaration declaratie = (Declaration) huidigKnooppunt;
+        @Override
+        public Void visitDeclaration(Declaration declaratie) {
             Expression waarde = declaratie.expression;
             if (waarde == null) {
-                // Niets te checken
-            } else {
-                // Dit triggert ook CH02/CH03/CH06 via typeOf()
-                ExpressionType typeVanWaarde = typeOf(waarde);
-                String eigenschapTekst = (declaratie.property == null)
-                        ? ""
-                        : declaratie.property.name.toLowerCase(java.util.Locale.ROOT);
-
-                // dit is voor CH04 type moet passen bij property
-                if ("color".equals(eigenschapTekst) || "background-color".equals(eigenschapTekst)) {
-                    if (typeVanWaarde != ExpressionType.COLOR) {
-                        declaratie.setError("Eigenschap '" + eigenschapTekst + "' verwacht een kleurwaarde (CH04).");
-                    }
-                } else if ("width".equals(eigenschapTekst) || "height".equals(eigenschapTekst)) {
-                    if (!(typeVanWaarde == ExpressionType.PIXEL || typeVanWaarde == ExpressionType.PERCENTAGE)) {
-                        declaratie.setError("Eigenschap '" + eigenschapTekst + "' verwacht een pixel- of percentagewaarde (CH04).");
-                    }
-                } else {
-                    // Niet-toegestane property volgens opdracht
-                    declaratie.setError("Eigenschap '" + eigenschapTekst + "' is niet toegestaan in ICSS.");
+                return null; // Niets te checken
+            }
+            // Dit triggert ook CH02/CH03/CH06 via typeOf()
+            ExpressionType typeVanWaarde = typeOf(waarde);
+            String eigenschapTekst = (declaratie.property == null)
+                    ? ""
+                    : declaratie.property.name.toLowerCase(java.util.Locale.ROOT);
+
+            // dit is voor CH04 type moet passen bij property
+            if ("color".equals(eigenschapTekst) || "background-color".equals(eigenschapTekst)) {
+                if (typeVanWaarde != ExpressionType.COLOR) {
+                    declaratie.setError("Eigenschap '" + eigenschapTekst + "' verwacht een kleurwaarde (CH04).");
                 }
+            } else if ("width".equals(eigenschapTekst) || "height".equals(eigenschapTekst)) {
+                if (!(typeVanWaarde == ExpressionType.PIXEL || typeVanWaarde == ExpressionType.PERCENTAGE)) {
+                    declaratie.setError("Eigenschap '" + eigenschapTekst + "' verwacht een pixel- of percentagewaarde (CH04).");
+                }
+            } else {
+                // Niet-toegestane property volgens opdracht
+                declaratie.setError("Eigenschap '" + eigenschapTekst + "' is niet toegestaan in ICSS.");
             }
+            return null;
+        }
+    };
+
+    // Typebepaling voor expressies en regels voor CH02/CH03
+    // Tegelijk vouw ik constante deelbomen: type en waarde komen als annotatie op de knoop,
+    // zodat de Evaluator ze niet nog een keer hoeft uit te rekenen.
+    private ExpressionType typeOf(Expression expressie) {
+        if (expressie == null) return ExpressionType.UNDEFINED;
+        // Oude annotaties weg (knopen kunnen hergebruikt zijn); de typeBepaler zet ze waar nodig opnieuw.
+        expressie.constant = false;
+        expressie.constantValue = 0;
+        ExpressionType type = expressie.accept(typeBepaler);
+        expressie.inferredType = type;
+        return type;
+    }
+
+    // Alleen als beide kanten bestaan en al gevouwen zijn.
+    private static boolean beideConstant(Operation bewerking) {
+        return bewerking.lhs != null && bewerking.lhs.constant
+                && bewerking.rhs != null && bewerking.rhs.constant;
+    }
+
+    private static void markeerConstant(Expression expressie, long waarde) {
+        expressie.constant = true;
+        expressie.constantValue = waarde;
+    }
+
+    private final ASTVisitor<ExpressionType> typeBepaler = new ASTVisitor<>() {
+
+        // Geen idee? Dan ga ik uit van undefined (checker houdt je hier wel tegen).
+        @Override
+        public ExpressionType visitNode(ASTNode knoop) {
+            return ExpressionType.UNDEFINED;
         }
 
-        // Kinderen bezoeken (diep de boom in)
-        for (ASTNode kind : huidigKnooppunt.getChildren()) {
-            visit(kind);
+        // Literals hebben een vast type en zijn natuurlijk constant.
+        @Override
+        public ExpressionType visitPixelLiteral(PixelLiteral literal) {
+            markeerConstant(literal, literal.value);
+            return ExpressionType.PIXEL;
         }
 
-        // Scopes weer sluiten nadat we de kinderen gehad hebben (post-order).
-        if (scopeIsGeopendVoorDitKnooppunt) {
-            popScope();
+        @Override
+        public ExpressionType visitPercentageLiteral(PercentageLiteral literal) {
+            markeerConstant(literal, literal.value);
+            return ExpressionType.PERCENTAGE;
         }
-    }
 
-    // Typebepaling voor expressies en regels voor CH02/CH03
-    private ExpressionType typeOf(Expression expressie) {
-        if (expressie == null) return ExpressionType.UNDEFINED;
+        @Override
+        public ExpressionType visitScalarLiteral(ScalarLiteral literal) {
+            markeerConstant(literal, literal.value);
+            return ExpressionType.SCALAR;
+        }
 
-        // Literals hebben een vast type; klaar.
-        if (expressie instanceof PixelLiteral)      return ExpressionType.PIXEL;
-        if (expressie instanceof PercentageLiteral) return ExpressionType.PERCENTAGE;
-        if (expressie instanceof ScalarLiteral)     return ExpressionType.SCALAR;
-        if (expressie instanceof ColorLiteral)      return ExpressionType.COLOR;
-        if (expressie instanceof BoolLiteral)       return ExpressionType.BOOL;
+        @Override
+        public ExpressionType visitColorLiteral(ColorLiteral literal) {
+            markeerConstant(literal, PrimitiveValues.packColor(literal.value));
+            return ExpressionType.COLOR;
+        }
+
+        @Override
+        public ExpressionType visitBoolLiteral(BoolLiteral literal) {
+            markeerConstant(literal, literal.value ? 1 : 0);
+            return ExpressionType.BOOL;
+        }
 
         // type komt uit de scope (anders undefined en foutje zetten).
-        if (expressie instanceof VariableReference) {
-            String variabeleNaam = ((VariableReference) expressie).name;
+        // Een variabele vouw ik nooit: zijn waarde hangt af van waar en hoe hij gezet wordt.
+        @Override
+        public ExpressionType visitVariableReference(VariableReference referentie) {
+            String variabeleNaam = referentie.name;
             ExpressionType gevondenType = lookupVarType(variabeleNaam);
             if (gevondenType == ExpressionType.UNDEFINED) {
-                expressie.setError("Gebruik van ongedefinieerde variabele '" + variabeleNaam + "' (CH01/CH06).");
+                referentie.setError("Gebruik van ongedefinieerde variabele '" + variabeleNaam + "' (CH01/CH06).");
             }
             return gevondenType;
         }
 
-        // Optellen/Aftrekken:
-        // * Geen kleuren in rekensommen (CH03)
-        // * Operanden moeten gelijk type hebben en niet boolaen zijn (CH02)
-        if (expressie instanceof AddOperation || expressie instanceof SubtractOperation) {
-            Operation bewerking = (Operation) expressie;
-            ExpressionType linkerType = typeOf(bewerking.lhs);
-            ExpressionType rechterType = typeOf(bewerking.rhs);
-
-            if (linkerType == ExpressionType.COLOR || rechterType == ExpressionType.COLOR) {
-                expressie.setError("Kleurwaarden mogen niet gebruikt worden in + of - (CH03).");
-                return ExpressionType.UNDEFINED;
-            }
+        @Override
+        public ExpressionType visitAddOperation(AddOperation bewerking) {
+            return optelType(bewerking, true);
+        }
 
-            boolean typesZijnGelijk = (linkerType == rechterType);
-            boolean isBooleanBijOperand = (linkerType == ExpressionType.BOOL || rechterType == ExpressionType.BOOL);
-            if (!typesZijnGelijk || isBooleanBijOperand) {
-                expressie.setError("Beide operanden van + en− moeten hetzelfde, niet boolean type hebben (CH02).");
-                return ExpressionType.UNDEFINED;
-            }
-            return linkerType; // types zijn gelijk, dus dit is het resultaat
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation bewerking) {
+            return optelType(bewerking, false);
         }
 
         // Vermenigvuldigen:
         // * Geen kleuren (CH03)
         // * Minstens eenn operand scalar, geen booleans (CH02)
-        if (expressie instanceof MultiplyOperation) {
-            Operation bewerking = (Operation) expressie;
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation bewerking) {
             ExpressionType linkerType = typeOf(bewerking.lhs);
             ExpressionType rechterType = typeOf(bewerking.rhs);
 
             if (linkerType == ExpressionType.COLOR || rechterType == ExpressionType.COLOR) {
-                expressie.setError("Kleurwaarden mogen niet gebruikt worden in * (komt van CH03).");
+                bewerking.setError("Kleurwaarden mogen niet gebruikt worden in * (komt van CH03).");
                 return ExpressionType.UNDEFINED;
             }
 
@@ -227,19 +283,45 @@ public class Checker {
                     (linkerType == ExpressionType.SCALAR || rechterType == ExpressionType.SCALAR);
 
             if (bevatBoolean || !heeftMinstensEenScalar) {
-                expressie.setError("Bij vermenigvuldigen moet minstens een operand SCALAR zijn en geen van beide BOOL/KLEUR (CH02).");
+                bewerking.setError("Bij vermenigvuldigen moet minstens een operand SCALAR zijn en geen van beide BOOL/KLEUR (CH02).");
                 return ExpressionType.UNDEFINED;
             }
 
+            // Beide kanten constant? Dan is het product dat ook.
+            if (beideConstant(bewerking)) {
+                markeerConstant(bewerking, PrimitiveValues.product(bewerking.lhs.constantValue, bewerking.rhs.constantValue));
+            }
+
             // Resultaat is het niet-scalar type (of scalar als beide scalar zijn).
             if (linkerType == ExpressionType.SCALAR && rechterType == ExpressionType.SCALAR) {
                 return ExpressionType.SCALAR;
             }
             return (linkerType == ExpressionType.SCALAR) ? rechterType : linkerType;
         }
+    };
+
+    // Optellen/Aftrekken:
+    // * Geen kleuren in rekensommen (CH03)
+    // * Operanden moeten gelijk type hebben en niet boolaen zijn (CH02)
+    private ExpressionType optelType(Operation bewerking, boolean isOptellen) {
+        ExpressionType linkerType = typeOf(bewerking.lhs);
+        ExpressionType rechterType = typeOf(bewerking.rhs);
+
+        if (linkerType == ExpressionType.COLOR || rechterType == ExpressionType.COLOR) {
+            bewerking.setError("Kleurwaarden mogen niet gebruikt worden in + of - (CH03).");
+            return ExpressionType.UNDEFINED;
+        }
 
-        // Geen idee? Dan ga ik uit van undefined (checker houdt je hier wel tegen).
-        return ExpressionType.UNDEFINED;
+        boolean typesZijnGelijk = (linkerType == rechterType);
+        boolean isBooleanBijOperand = (linkerType == ExpressionType.BOOL || rechterType == ExpressionType.BOOL);
+        if (!typesZijnGelijk || isBooleanBijOperand) {
+            bewerking.setError("Beide operanden van + en− moeten hetzelfde, niet boolean type hebben (CH02).");
+            return ExpressionType.UNDEFINED;
+        }
+        if (beideConstant(bewerking)) {
+            markeerConstant(bewerking, PrimitiveValues.sum(bewerking.lhs.constantValue, bewerking.rhs.constantValue, isOptellen));
+        }
+        return linkerType; // types zijn gelijk, dus dit is het resultaat
     }
 }
 
@@ -0,0 +1,382 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.compiler.CompilationCache;
+import nl.han.ica.icss.compiler.CompilerOptions;
+import nl.han.ica.icss.compiler.CssResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Headless "icssc" entry point: compiles whole trees of .icss files without the GUI.
+ *
+ * Usage: icssc [-o outDir] [-j threads] [--report report.json] [--cache-dir dir] [--optimize] [--minify] &lt;dir|file|glob&gt;...
+ */
+public class BatchCompiler {
+
+    private static final String USAGE =
+            "Usage: icssc [-o outDir] [-j threads] [--report report.json] [--cache-dir dir] [--optimize] [--minify] <dir|file|glob>...";
+
+    private Path uitvoerMap;
+    private Path rapportBestand;
+    private Path cacheMap;
+    private CompilationCache cache;
+    private int aantalThreads = Runtime.getRuntime().availableProcessors();
+    private final List<String> invoerPatronen = new ArrayList<>();
+    private CompilerOptions opties = CompilerOptions.DEFAULT;
+    private ICSSCompiler compiler = new ICSSCompiler();
+
+    public static void main(String[] args) {
+        BatchCompiler compiler = new BatchCompiler();
+        int exitCode;
+        try {
+            compiler.leesArgumenten(args);
+            exitCode = compiler.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            exitCode = 2;
+        } catch (IOException e) {
+            System.err.println("icssc: " + e);
+            exitCode = 2;
+        }
+        System.exit(exitCode);
+    }
+
+    // Argumenten uitpluizen, alles wat geen optie is telt als invoer.
+    void leesArgumenten(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-o".equals(arg) || "--out".equals(arg)) {
+                uitvoerMap = Paths.get(waardeNa(args, ++i, arg));
+            } else if ("-j".equals(arg) || "--threads".equals(arg)) {
+                try {
+                    aantalThreads = Integer.parseInt(waardeNa(args, ++i, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Ongeldig aantal threads: " + args[i]);
+                }
+                if (aantalThreads < 1) {
+                    throw new IllegalArgumentException("Aantal threads moet minstens 1 zijn.");
+                }
+            } else if ("--report".equals(arg)) {
+                rapportBestand = Paths.get(waardeNa(args, ++i, arg));
+            } else if ("--cache-dir".equals(arg)) {
+                cacheMap = Paths.get(waardeNa(args, ++i, arg));
+            } else if ("--optimize".equals(arg)) {
+                opties = opties.withOptimize(true);
+            } else if ("--minify".equals(arg)) {
+                opties = opties.withMinify(true);
+            } else if (arg.startsWith("-")) {
+                throw new IllegalArgumentException("Onbekende optie: " + arg);
+            } else {
+                invoerPatronen.add(arg);
+            }
+        }
+        if (invoerPatronen.isEmpty()) {
+            throw new IllegalArgumentException("Geen invoer opgegeven.");
+        }
+        compiler = new ICSSCompiler(opties);
+    }
+
+    private static String waardeNa(String[] args, int index, String optie) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Optie " + optie + " verwacht een waarde.");
+        }
+        return args[index];
+    }
+
+    // Alles compileren en het rapport wegschrijven. Geeft de exit code terug.
+    int run() throws IOException {
+        if (cacheMap != null) {
+            cache = new CompilationCache(compiler, cacheMap);
+        }
+        List<Bron> bronnen = zoekBronnen();
+        List<Resultaat> resultaten = compileerAlles(bronnen);
+
+        int mislukt = 0;
+        for (Resultaat r : resultaten) {
+            if (!r.fouten.isEmpty()) {
+                mislukt++;
+                for (String fout : r.fouten) {
+                    System.err.println(r.bron.pad + ": " + fout);
+                }
+            }
+        }
+        if (rapportBestand != null) {
+            schrijfRapport(resultaten, rapportBestand);
+        }
+        System.out.println("icssc: " + resultaten.size() + " bestanden, " + mislukt + " met fouten.");
+        if (cache != null) {
+            System.out.println("icssc: cache " + cache);
+        }
+        return mislukt == 0 ? 0 : 1;
+    }
+
+    // Invoer omzetten naar een gesorteerde lijst .icss bestanden (mappen recursief, globs via PathMatcher).
+    List<Bron> zoekBronnen() throws IOException {
+        TreeSet<Path> gevonden = new TreeSet<>();
+        List<Bron> bronnen = new ArrayList<>();
+        for (String patroon : invoerPatronen) {
+            if (isGlob(patroon)) {
+                Path basis = vasteBasisVan(patroon);
+                List<PathMatcher> matchers = new ArrayList<>();
+                for (String variant : zonderLegeDubbeleSter(patroon)) {
+                    matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + variant));
+                }
+                for (Path p : alleBestandenOnder(basis)) {
+                    if (matchtEen(matchers, p) && gevonden.add(p.toAbsolutePath().normalize())) {
+                        bronnen.add(new Bron(p, basis));
+                    }
+                }
+            } else {
+                Path pad = Paths.get(patroon);
+                if (Files.isDirectory(pad)) {
+                    for (Path p : alleBestandenOnder(pad)) {
+                        if (p.toString().endsWith(".icss") && gevonden.add(p.toAbsolutePath().normalize())) {
+                            bronnen.add(new Bron(p, pad));
+                        }
+                    }
+                } else if (Files.isRegularFile(pad)) {
+                    if (gevonden.add(pad.toAbsolutePath().normalize())) {
+                        Path ouder = pad.getParent() != null ? pad.getParent() : Paths.get("");
+                        bronnen.add(new Bron(pad, ouder));
+                    }
+                } else {
+                    throw new IllegalArgumentException("Invoer bestaat niet: " + patroon);
+                }
+            }
+        }
+        return bronnen;
+    }
+
+    private static boolean isGlob(String patroon) {
+        return patroon.indexOf('*') >= 0 || patroon.indexOf('?') >= 0
+                || patroon.indexOf('[') >= 0 || patroon.indexOf('{') >= 0;
+    }
+
+    // In een PathMatcher-glob staat **/ voor minstens een map; zoals in de shell moet het ook nul
+    // mappen kunnen zijn. Daarom ook elke variant waarin een of meer **/ zijn weggelaten.
+    static List<String> zonderLegeDubbeleSter(String glob) {
+        List<String> varianten = new ArrayList<>();
+        varianten.add(glob);
+        for (int i = 0; i < varianten.size(); i++) {
+            String variant = varianten.get(i);
+            for (int k = variant.indexOf("**/"); k >= 0; k = variant.indexOf("**/", k + 1)) {
+                if (k > 0 && variant.charAt(k - 1) != '/') continue;
+                String korter = variant.substring(0, k) + variant.substring(k + 3);
+                if (!varianten.contains(korter)) varianten.add(korter);
+            }
+        }
+        return varianten;
+    }
+
+    private static boolean matchtEen(List<PathMatcher> matchers, Path pad) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(pad)) return true;
+        }
+        return false;
+    }
+
+    // Het deel van een glob voor het eerste wildcard-segment, daar begin ik met zoeken.
+    private static Path vasteBasisVan(String glob) {
+        String[] segmenten = glob.split("/");
+        StringBuilder basis = new StringBuilder(glob.startsWith("/") ? "/" : "");
+        for (String segment : segmenten) {
+            if (segment.isEmpty()) continue;
+            if (isGlob(segment)) break;
+            basis.append(segment).append('/');
+        }
+        return basis.length() == 0 ? Paths.get("") : Paths.get(basis.toString());
+    }
+
+    private static List<Path> alleBestandenOnder(Path map) throws IOException {
+        if (!Files.isDirectory(map)) return Collections.emptyList();
+        try (Stream<Path> paden = Files.walk(map)) {
+            List<Path> bestanden = new ArrayList<>();
+            paden.filter(Files::isRegularFile).sorted().forEach(bestanden::add);
+            return bestanden;
+        }
+    }
+
+    // Elke bron als losse taak in een work-stealing pool; de compiler is stateless en wordt gedeeld.
+    List<Resultaat> compileerAlles(List<Bron> bronnen) throws IOException {
+        ExecutorService pool = Executors.newWorkStealingPool(aantalThreads);
+        try {
+            List<Future<Resultaat>> taken = new ArrayList<>(bronnen.size());
+            for (Bron bron : bronnen) {
+                taken.add(pool.submit(() -> compileer(bron)));
+            }
+            List<Resultaat> resultaten = new ArrayList<>(taken.size());
+            for (Future<Resultaat> taak : taken) {
+                try {
+                    resultaten.add(taak.get());
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Onderbroken tijdens compileren.", e);
+                }
+            }
+            return resultaten;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // parse -> check -> transform -> generate voor een enkel bestand. Gaat er iets mis (onleesbaar
+    // bestand, schijf vol, een exception in de compiler), dan wordt dat de fout van dit bestand en
+    // gaan de andere gewoon door.
+    Resultaat compileer(Bron bron) {
+        try {
+            return vertaal(bron);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(uitvoerPadVoor(bron));
+            } catch (IOException | RuntimeException negeren) {
+                // De fout zelf is belangrijker; die wordt hieronder gemeld.
+            }
+            return new Resultaat(bron, null, Collections.singletonList(e.toString()));
+        }
+    }
+
+    private Resultaat vertaal(Bron bron) throws IOException {
+        String invoer = new String(Files.readAllBytes(bron.pad), StandardCharsets.UTF_8);
+        Path uitvoer = uitvoerPadVoor(bron);
+        if (uitvoer.getParent() != null) {
+            Files.createDirectories(uitvoer.getParent());
+        }
+
+        CssResult uitCache = null;
+        if (cache != null) {
+            uitCache = cache.compile(invoer);
+            if (!uitCache.isSuccess()) {
+                // Geen oude .css laten staan die niet meer bij de bron hoort.
+                Files.deleteIfExists(uitvoer);
+                return new Resultaat(bron, null, uitCache.getErrors());
+            }
+        }
+
+        // Naar een tijdelijk bestand schrijven (zonder cache direct streamen) en pas bij succes op zijn
+        // plek zetten, zodat er nooit een half (of bij fouten leeg) .css-bestand achterblijft.
+        Path tijdelijk = Files.createTempFile(uitvoer.toAbsolutePath().getParent(), "icssc", ".tmp");
+        try {
+            List<String> fouten;
+            try (Writer out = Files.newBufferedWriter(tijdelijk, StandardCharsets.UTF_8)) {
+                if (uitCache != null) {
+                    out.write(uitCache.getCss());
+                    fouten = uitCache.getErrors();
+                } else {
+                    fouten = compiler.compile(invoer, out);
+                }
+            }
+            if (!fouten.isEmpty()) {
+                Files.deleteIfExists(uitvoer);
+                return new Resultaat(bron, null, fouten);
+            }
+            Files.move(tijdelijk, uitvoer, StandardCopyOption.REPLACE_EXISTING);
+            return new Resultaat(bron, uitvoer, fouten);
+        } finally {
+            Files.deleteIfExists(tijdelijk);
+        }
+    }
+
+    // Zonder -o komt de .css naast de bron, anders in dezelfde relatieve plek onder outDir.
+    Path uitvoerPadVoor(Bron bron) {
+        String naam = bron.pad.getFileName().toString();
+        int punt = naam.lastIndexOf('.');
+        String cssNaam = (punt > 0 ? naam.substring(0, punt) : naam) + ".css";
+        if (uitvoerMap == null) {
+            return bron.pad.resolveSibling(cssNaam);
+        }
+        Path relatief = bron.basis.toAbsolutePath().normalize().relativize(bron.pad.toAbsolutePath().normalize());
+        return uitvoerMap.resolve(relatief).resolveSibling(cssNaam);
+    }
+
+    // Machine-leesbaar rapport in JSON (met de hand, om geen extra dependency te hoeven trekken).
+    static void schrijfRapport(List<Resultaat> resultaten, Path bestand) throws IOException {
+        if (bestand.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(bestand.toAbsolutePath().getParent());
+        }
+        int mislukt = 0;
+        for (Resultaat r : resultaten) {
+            if (!r.fouten.isEmpty()) mislukt++;
+        }
+        try (Writer out = Files.newBufferedWriter(bestand, StandardCharsets.UTF_8)) {
+            out.write("{\n  \"files\": " + resultaten.size() + ",\n  \"failed\": " + mislukt + ",\n  \"results\": [");
+            for (int i = 0; i < resultaten.size(); i++) {
+                Resultaat r = resultaten.get(i);
+                out.write(i == 0 ? "\n" : ",\n");
+                out.write("    {\"input\": " + json(r.bron.pad.toString()));
+                out.write(", \"output\": " + (r.uitvoer == null ? "null" : json(r.uitvoer.toString())));
+                out.write(", \"errors\": [");
+                for (int j = 0; j < r.fouten.size(); j++) {
+                    if (j > 0) out.write(", ");
+                    out.write(json(r.fouten.get(j)));
+                }
+                out.write("]}");
+            }
+            out.write("\n  ]\n}\n");
+        }
+    }
+
+    static String json(String tekst) {
+        StringBuilder sb = new StringBuilder(tekst.length() + 2).append('"');
+        for (int i = 0; i < tekst.length(); i++) {
+            char c = tekst.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Een te compileren bestand plus de map waartegen het relatieve uitvoerpad bepaald wordt.
+    static final class Bron {
+        final Path pad;
+        final Path basis;
+
+        Bron(Path pad, Path basis) {
+            this.pad = pad;
+            this.basis = basis;
+        }
+    }
+
+    static final class Resultaat {
+        final Bron bron;
+        final Path uitvoer;
+        final List<String> fouten;
+
+        Resultaat(Bron bron, Path uitvoer, List<String> fouten) {
+            this.bron = bron;
+            this.uitvoer = uitvoer;
+            this.fouten = Collections.unmodifiableList(new ArrayList<>(fouten));
+        }
+    }
+}
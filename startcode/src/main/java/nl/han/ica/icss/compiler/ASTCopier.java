@@ -0,0 +1,119 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.ast.selectors.*;
+
+import java.util.ArrayList;
+
+/**
+ * Deep copy of an AST, used by {@link ICSSCompiler} so a stage never changes the tree of its input.
+ * Errors that were set on nodes are copied along, and so are the checker's annotations
+ * and compiled programs on expressions.
+ */
+final class ASTCopier {
+
+    private ASTCopier() {
+    }
+
+    static AST copy(AST ast) {
+        if (ast == null) return null;
+        return new AST((Stylesheet) copy(ast.root));
+    }
+
+    static ASTNode copy(ASTNode node) {
+        if (node == null) return null;
+        ASTNode kopie = kopieZonderFout(node);
+        if (node.hasError()) {
+            kopie.setError(node.getError().description);
+        }
+        if (node instanceof Expression) {
+            Expression origineel = (Expression) node;
+            Expression expressie = (Expression) kopie;
+            expressie.inferredType = origineel.inferredType;
+            expressie.constant = origineel.constant;
+            expressie.constantValue = origineel.constantValue;
+            // De gecompileerde vorm is onveranderlijk en verwijst niet naar knopen: delen mag.
+            expressie.compiled = origineel.compiled;
+        }
+        return kopie;
+    }
+
+    private static ASTNode kopieZonderFout(ASTNode node) {
+        if (node instanceof Stylesheet) {
+            return new Stylesheet(copyAll(((Stylesheet) node).body));
+        }
+        if (node instanceof Stylerule) {
+            Stylerule origineel = (Stylerule) node;
+            Stylerule regel = new Stylerule();
+            for (Selector s : origineel.selectors) {
+                regel.selectors.add((Selector) copy(s));
+            }
+            regel.body = copyAll(origineel.body);
+            return regel;
+        }
+        if (node instanceof Declaration) {
+            Declaration origineel = (Declaration) node;
+            Declaration declaratie = new Declaration();
+            declaratie.property = (PropertyName) copy(origineel.property);
+            declaratie.expression = (Expression) copy(origineel.expression);
+            return declaratie;
+        }
+        if (node instanceof VariableAssignment) {
+            VariableAssignment origineel = (VariableAssignment) node;
+            VariableAssignment toekenning = new VariableAssignment();
+            toekenning.name = (VariableReference) copy(origineel.name);
+            toekenning.expression = (Expression) copy(origineel.expression);
+            return toekenning;
+        }
+        if (node instanceof IfClause) {
+            IfClause origineel = (IfClause) node;
+            return new IfClause((Expression) copy(origineel.conditionalExpression),
+                    copyAll(origineel.body), (ElseClause) copy(origineel.elseClause));
+        }
+        if (node instanceof ElseClause) {
+            return new ElseClause(copyAll(((ElseClause) node).body));
+        }
+        if (node instanceof PropertyName) {
+            return new PropertyName(((PropertyName) node).name);
+        }
+        if (node instanceof VariableReference) {
+            return new VariableReference(((VariableReference) node).name);
+        }
+        if (node instanceof Operation) {
+            Operation origineel = (Operation) node;
+            Operation bewerking;
+            if (node instanceof AddOperation) {
+                bewerking = new AddOperation();
+            } else if (node instanceof SubtractOperation) {
+                bewerking = new SubtractOperation();
+            } else if (node instanceof MultiplyOperation) {
+                bewerking = new MultiplyOperation();
+            } else {
+                throw new IllegalArgumentException("Onbekende operatie: " + node.getClass().getName());
+            }
+            bewerking.lhs = (Expression) copy(origineel.lhs);
+            bewerking.rhs = (Expression) copy(origineel.rhs);
+            return bewerking;
+        }
+        if (node instanceof PixelLiteral)      return new PixelLiteral(((PixelLiteral) node).value);
+        if (node instanceof PercentageLiteral) return new PercentageLiteral(((PercentageLiteral) node).value);
+        if (node instanceof ScalarLiteral)     return new ScalarLiteral(((ScalarLiteral) node).value);
+        if (node instanceof ColorLiteral)      return new ColorLiteral(((ColorLiteral) node).value);
+        if (node instanceof BoolLiteral)       return new BoolLiteral(((BoolLiteral) node).value);
+        if (node instanceof IdSelector)        return new IdSelector(((IdSelector) node).id);
+        if (node instanceof ClassSelector)     return new ClassSelector(((ClassSelector) node).cls);
+        if (node instanceof TagSelector)       return new TagSelector(((TagSelector) node).tag);
+
+        throw new IllegalArgumentException("Kan knoop niet kopieren: " + node.getClass().getName());
+    }
+
+    private static ArrayList<ASTNode> copyAll(ArrayList<ASTNode> knopen) {
+        ArrayList<ASTNode> kopie = new ArrayList<>(knopen.size());
+        for (ASTNode knoop : knopen) {
+            kopie.add(copy(knoop));
+        }
+        return kopie;
+    }
+}
@@ -0,0 +1,27 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.AST;
+
+import java.util.List;
+
+/**
+ * Outcome of the check stage: a checked copy of the parsed AST (with errors on the offending nodes)
+ * plus the semantic errors, or the parse errors when parsing already failed.
+ */
+public final class CheckResult extends StageResult {
+
+    private final AST ast;
+
+    CheckResult(AST ast, List<String> errors) {
+        this(ast, errors, null, 0);
+    }
+
+    CheckResult(AST ast, List<String> errors, String sourceId, long sourceSize) {
+        super(errors, sourceId, sourceSize);
+        this.ast = ast;
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+}
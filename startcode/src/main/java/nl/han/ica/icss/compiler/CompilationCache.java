@@ -0,0 +1,312 @@
+package nl.han.ica.icss.compiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache in front of {@link ICSSCompiler#compile(String)}.
+ *
+ * The key is a SHA-256 hash of the compiler version, its options and the source text; the value is the
+ * generated CSS together with the semantic errors. Entries live in an LRU map that is bounded
+ * by entry count and (approximate) size in bytes, with an optional second tier of files in a
+ * directory that is bounded by total file size. A hit in either tier skips lexing and parsing.
+ *
+ * Thread-safe; concurrent misses for the same source may both compile, the last one wins.
+ */
+public class CompilationCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_MAX_DISK_BYTES = 512L * 1024 * 1024;
+
+    private static final String EXTENSIE = ".icsscache";
+
+    private final ICSSCompiler compiler;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Path schijfMap;
+    private final long maxSchijfBytes;
+
+    private final LinkedHashMap<String, CssResult> geheugen = new LinkedHashMap<>(256, 0.75f, true);
+    private long geheugenBytes = 0;
+    private long schijfBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * In-memory cache only, with the default limits.
+     */
+    public CompilationCache(ICSSCompiler compiler) {
+        this(compiler, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, null, 0);
+    }
+
+    /**
+     * In-memory cache backed by a directory with the default limits.
+     */
+    public CompilationCache(ICSSCompiler compiler, Path directory) {
+        this(compiler, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, directory, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * @param maxEntries     maximum number of entries in memory
+     * @param maxBytes       maximum (estimated) size in bytes of the entries in memory
+     * @param directory      directory for the on-disk tier, or null for memory only
+     * @param maxDiskBytes   maximum total size of the cache files in the directory
+     */
+    public CompilationCache(ICSSCompiler compiler, int maxEntries, long maxBytes,
+                            Path directory, long maxDiskBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache limits must be positive.");
+        }
+        this.compiler = compiler;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.schijfMap = directory;
+        this.maxSchijfBytes = maxDiskBytes;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                for (Path bestand : cacheBestanden()) {
+                    schijfBytes += Files.size(bestand);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot use cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached result for this source, or compiles and remembers it.
+     */
+    public CssResult compile(String source) {
+        String sleutel = keyOf(compiler.getOptions(), source);
+
+        CssResult resultaat = uitGeheugen(sleutel);
+        if (resultaat != null) {
+            hits.incrementAndGet();
+            return resultaat;
+        }
+        resultaat = vanSchijf(sleutel);
+        if (resultaat != null) {
+            diskHits.incrementAndGet();
+            inGeheugen(sleutel, resultaat);
+            return resultaat;
+        }
+
+        misses.incrementAndGet();
+        resultaat = compiler.compile(source);
+        inGeheugen(sleutel, resultaat);
+        naarSchijf(sleutel, resultaat);
+        return resultaat;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return geheugen.size();
+    }
+
+    public synchronized void clear() {
+        geheugen.clear();
+        geheugenBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", disk hits=" + getDiskHits() + ", misses=" + getMisses();
+    }
+
+    // Sleutel: SHA-256 over compilerversie + opties + bron, als hex.
+    static String keyOf(CompilerOptions options, String source) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(ICSSCompiler.VERSION.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(options.toString().getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            byte[] hash = sha.digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // ---------- geheugen ----------
+
+    private synchronized CssResult uitGeheugen(String sleutel) {
+        return geheugen.get(sleutel);
+    }
+
+    private synchronized void inGeheugen(String sleutel, CssResult resultaat) {
+        CssResult oud = geheugen.put(sleutel, resultaat);
+        if (oud != null) geheugenBytes -= grootteVan(oud);
+        geheugenBytes += grootteVan(resultaat);
+
+        // LRU: de oudste (minst recent gebruikte) eruit tot we weer binnen de grenzen zitten.
+        Iterator<Map.Entry<String, CssResult>> oudsteEerst = geheugen.entrySet().iterator();
+        while ((geheugen.size() > maxEntries || geheugenBytes > maxBytes) && oudsteEerst.hasNext()) {
+            Map.Entry<String, CssResult> oudste = oudsteEerst.next();
+            geheugenBytes -= grootteVan(oudste.getValue());
+            oudsteEerst.remove();
+        }
+    }
+
+    // Ruwe schatting: chars zijn 2 bytes, plus wat overhead per object.
+    private static long grootteVan(CssResult resultaat) {
+        long bytes = 128 + 2L * resultaat.getCss().length();
+        for (String fout : resultaat.getErrors()) {
+            bytes += 48 + 2L * fout.length();
+        }
+        return bytes;
+    }
+
+    // ---------- schijf ----------
+    // Formaat: eerste regel het aantal fouten, dan elke fout op een regel (\\ en \n ontsnapt), daarna de CSS.
+
+    private Path bestandVoor(String sleutel) {
+        return schijfMap.resolve(sleutel + EXTENSIE);
+    }
+
+    private CssResult vanSchijf(String sleutel) {
+        if (schijfMap == null) return null;
+        Path bestand = bestandVoor(sleutel);
+        try {
+            String inhoud = new String(Files.readAllBytes(bestand), StandardCharsets.UTF_8);
+            int regelEinde = inhoud.indexOf('\n');
+            int aantalFouten = Integer.parseInt(inhoud.substring(0, regelEinde));
+            List<String> fouten = new ArrayList<>(aantalFouten);
+            int positie = regelEinde + 1;
+            for (int i = 0; i < aantalFouten; i++) {
+                regelEinde = inhoud.indexOf('\n', positie);
+                fouten.add(ontsnapt(inhoud.substring(positie, regelEinde)));
+                positie = regelEinde + 1;
+            }
+            // Als "recent gebruikt" markeren, het opruimen gaat op wijzigingstijd.
+            Files.setLastModifiedTime(bestand, FileTime.fromMillis(System.currentTimeMillis()));
+            return new CssResult(inhoud.substring(positie), fouten);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Kapot of half geschreven bestand: behandelen als een miss.
+            return null;
+        }
+    }
+
+    private void naarSchijf(String sleutel, CssResult resultaat) {
+        if (schijfMap == null) return;
+        StringBuilder inhoud = new StringBuilder();
+        inhoud.append(resultaat.getErrors().size()).append('\n');
+        for (String fout : resultaat.getErrors()) {
+            ontsnap(fout, inhoud);
+            inhoud.append('\n');
+        }
+        inhoud.append(resultaat.getCss());
+        byte[] bytes = inhoud.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path doel = bestandVoor(sleutel);
+        try {
+            // Eerst naar een tijdelijk bestand en dan verplaatsen, zodat lezers nooit een half bestand zien.
+            Path tijdelijk = Files.createTempFile(schijfMap, sleutel, ".tmp");
+            Files.write(tijdelijk, bytes);
+            try {
+                Files.move(tijdelijk, doel, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tijdelijk, doel, StandardCopyOption.REPLACE_EXISTING);
+            }
+            ruimSchijfOp(bytes.length);
+        } catch (IOException e) {
+            // De cache is een optimalisatie; niet kunnen schrijven mag het compileren niet breken.
+        }
+    }
+
+    // Een fout op een regel: \ wordt \\ en een newline \n, zodat een \n die al in de melding stond heel blijft.
+    private static void ontsnap(String fout, StringBuilder naar) {
+        for (int i = 0; i < fout.length(); i++) {
+            char c = fout.charAt(i);
+            if (c == '\\') naar.append("\\\\");
+            else if (c == '\n') naar.append("\\n");
+            else naar.append(c);
+        }
+    }
+
+    // Het omgekeerde van ontsnap, in een keer van links naar rechts.
+    private static String ontsnapt(String regel) {
+        StringBuilder fout = new StringBuilder(regel.length());
+        for (int i = 0; i < regel.length(); i++) {
+            char c = regel.charAt(i);
+            if (c == '\\' && i + 1 < regel.length()) {
+                c = regel.charAt(++i) == 'n' ? '\n' : regel.charAt(i);
+            }
+            fout.append(c);
+        }
+        return fout.toString();
+    }
+
+    // Over de grens? Dan de langst niet gebruikte bestanden weggooien.
+    private synchronized void ruimSchijfOp(long erbij) throws IOException {
+        schijfBytes += erbij;
+        if (schijfBytes <= maxSchijfBytes) return;
+
+        List<Path> bestanden = cacheBestanden();
+        bestanden.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        long totaal = 0;
+        for (Path bestand : bestanden) {
+            totaal += Files.size(bestand);
+        }
+        for (Path bestand : bestanden) {
+            if (totaal <= maxSchijfBytes) break;
+            long grootte = Files.size(bestand);
+            Files.deleteIfExists(bestand);
+            totaal -= grootte;
+        }
+        schijfBytes = totaal;
+    }
+
+    private List<Path> cacheBestanden() throws IOException {
+        List<Path> bestanden = new ArrayList<>();
+        try (DirectoryStream<Path> inhoud = Files.newDirectoryStream(schijfMap, "*" + EXTENSIE)) {
+            for (Path bestand : inhoud) {
+                bestanden.add(bestand);
+            }
+        }
+        return bestanden;
+    }
+}
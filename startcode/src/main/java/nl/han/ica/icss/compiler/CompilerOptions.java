@@ -0,0 +1,63 @@
+package nl.han.ica.icss.compiler;
+
+/**
+ * Settings that change the CSS an {@link ICSSCompiler} produces. Immutable; every option is part
+ * of the {@link CompilationCache} key, so results compiled with other options are never mixed up.
+ */
+public final class CompilerOptions {
+
+    public static final CompilerOptions DEFAULT = new CompilerOptions(false, false);
+
+    private final boolean optimize;
+    private final boolean minify;
+
+    private CompilerOptions(boolean optimize, boolean minify) {
+        this.optimize = optimize;
+        this.minify = minify;
+    }
+
+    /**
+     * Removes declarations that are overridden later in the same rule, drops empty rules and
+     * merges rules with the same declarations (see OutputOptimizer). The CSS means the same, but is smaller.
+     */
+    public CompilerOptions withOptimize(boolean optimize) {
+        return new CompilerOptions(optimize, minify);
+    }
+
+    /**
+     * Writes the CSS without optional whitespace and with short colors and zeros
+     * (see {@link nl.han.ica.icss.generator.Generator#Generator(boolean)}).
+     */
+    public CompilerOptions withMinify(boolean minify) {
+        return new CompilerOptions(optimize, minify);
+    }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    public boolean isMinify() {
+        return minify;
+    }
+
+    /**
+     * Stable text form, used in cache keys.
+     */
+    @Override
+    public String toString() {
+        return "optimize=" + optimize + ",minify=" + minify;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CompilerOptions andere = (CompilerOptions) o;
+        return optimize == andere.optimize && minify == andere.minify;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Boolean.hashCode(optimize) + Boolean.hashCode(minify);
+    }
+}
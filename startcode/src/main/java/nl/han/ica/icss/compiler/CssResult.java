@@ -0,0 +1,27 @@
+package nl.han.ica.icss.compiler;
+
+import java.util.List;
+
+/**
+ * Outcome of a complete compilation: the generated CSS, or the errors of the first stage that failed.
+ */
+public final class CssResult extends StageResult {
+
+    private final String css;
+
+    CssResult(String css, List<String> errors) {
+        this(css, errors, null, 0);
+    }
+
+    CssResult(String css, List<String> errors, String sourceId, long sourceSize) {
+        super(errors, sourceId, sourceSize);
+        this.css = css;
+    }
+
+    /**
+     * @return the generated CSS, empty when compilation failed
+     */
+    public String getCss() {
+        return css;
+    }
+}
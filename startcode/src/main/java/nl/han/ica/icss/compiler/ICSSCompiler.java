@@ -0,0 +1,496 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.events.CheckEvent;
+import nl.han.ica.icss.events.GenerateEvent;
+import nl.han.ica.icss.events.LexEvent;
+import nl.han.ica.icss.events.ParseEvent;
+import nl.han.ica.icss.events.TransformEvent;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.FastICSSLexer;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.transforms.IfOptimizer;
+import nl.han.ica.icss.transforms.OutputOptimizer;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stateless front door to the ICSS compiler.
+ *
+ * Every stage takes the result of the previous stage and returns a new, immutable result.
+ * Stages never modify the AST of their input (check works on a copy, transform builds a new
+ * tree that shares every unchanged node with its input), so one instance can be shared freely
+ * between threads and results can be reused. Treat the ASTs in results as read-only.
+ */
+public class ICSSCompiler {
+
+    /**
+     * Identifies the compiler's output. Part of every {@link CompilationCache} key, so bump it
+     * whenever a change alters the generated CSS or the error messages.
+     */
+    public static final String VERSION = "2020.1.0-September+3";
+
+    /**
+     * Files from this size (in bytes) on are memory-mapped by {@link #parse(Path)}; smaller ones are read.
+     */
+    public static final int MAP_THRESHOLD = 64 * 1024;
+
+    private final CompilerOptions options;
+
+    // Alleen tellers; de compiler zelf blijft zonder toestand.
+    private final AtomicLong sllParses = new AtomicLong();
+    private final AtomicLong llFallbacks = new AtomicLong();
+
+    public ICSSCompiler() {
+        this(CompilerOptions.DEFAULT);
+    }
+
+    public ICSSCompiler(CompilerOptions options) {
+        this.options = options;
+    }
+
+    public CompilerOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Like {@link #parse(CharStream)}, but lexes with the hand-written {@link FastICSSLexer}.
+     */
+    public ParseResult parse(String source) {
+        return parse(source, null);
+    }
+
+    // naam: bestandsnaam voor de JFR-events, of null.
+    private ParseResult parse(String source, String naam) {
+        if (bevatSurrogaat(source)) {
+            // Alleen in ongeldige invoer; ICSSLexer telt posities dan in code points, FastICSSLexer niet.
+            return parse(CharStreams.fromString(source), naam);
+        }
+        List<String> errors = new ArrayList<>();
+        FastICSSLexer lexer = new FastICSSLexer(source.toCharArray());
+        lexer.addErrorListener(foutVerzamelaar(errors));
+        return parse(lexer, errors, naam);
+    }
+
+    /**
+     * Parses a UTF-8 file without first reading it into a String. Files of at least
+     * {@link #MAP_THRESHOLD} bytes are memory-mapped; pure ASCII (any valid ICSS) is then lexed
+     * straight from the mapped bytes. Anything else (only invalid ICSS) is decoded first.
+     */
+    public ParseResult parse(Path file) throws IOException {
+        try (FileChannel kanaal = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(kanaal, file.toString());
+        }
+    }
+
+    /**
+     * Like {@link #parse(Path)}, for the remaining bytes of a channel. File channels are mapped
+     * from their current position; the channel is read to the end but not closed.
+     */
+    public ParseResult parse(ReadableByteChannel in) throws IOException {
+        return parse(in, null);
+    }
+
+    private ParseResult parse(ReadableByteChannel in, String naam) throws IOException {
+        if (in instanceof FileChannel) {
+            FileChannel kanaal = (FileChannel) in;
+            long start = kanaal.position();
+            long grootte = kanaal.size() - start;
+            if (grootte > Integer.MAX_VALUE) {
+                throw new IOException("Input too large: " + grootte + " bytes");
+            }
+            if (grootte >= MAP_THRESHOLD) {
+                // De mapping blijft geldig als het kanaal dicht gaat.
+                ByteBuffer bytes = kanaal.map(FileChannel.MapMode.READ_ONLY, start, grootte);
+                kanaal.position(start + grootte);
+                return parseUtf8(bytes, naam);
+            }
+        }
+        return parseUtf8(leesAlles(in), naam);
+    }
+
+    private ParseResult parseUtf8(ByteBuffer bytes, String naam) {
+        if (FastICSSLexer.isAscii(bytes)) {
+            List<String> errors = new ArrayList<>();
+            FastICSSLexer lexer = new FastICSSLexer(bytes);
+            lexer.addErrorListener(foutVerzamelaar(errors));
+            return parse(lexer, errors, naam);
+        }
+        // Alleen ongeldige ICSS bevat iets anders dan ASCII; vervangen zoals CharStreams.fromPath dat doet.
+        CharBuffer tekens;
+        try {
+            tekens = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e); // kan niet, alles wordt vervangen
+        }
+        return parse(tekens.toString(), naam);
+    }
+
+    private static ByteBuffer leesAlles(ReadableByteChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAP_THRESHOLD);
+        while (in.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                ByteBuffer groter = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                groter.put(buffer);
+                buffer = groter;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Parses in two stages: first with ANTLR's fast SLL prediction, giving up at the first
+     * problem, and only when that fails again with full LL and normal error reporting. Both give
+     * the same AST and errors; valid input almost never needs the second stage. The AST is built
+     * while the parser runs, no parse tree is kept. Lexer errors come before parser errors.
+     */
+    public ParseResult parse(CharStream input) {
+        String naam = input.getSourceName();
+        return parse(input, IntStream.UNKNOWN_SOURCE_NAME.equals(naam) ? null : naam);
+    }
+
+    private ParseResult parse(CharStream input, String naam) {
+        List<String> errors = new ArrayList<>();
+
+        //Lex (with Antlr's generated lexer)
+        ICSSLexer lexer = new ICSSLexer(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(foutVerzamelaar(errors));
+        return parse(lexer, errors, naam);
+    }
+
+    private ParseResult parse(TokenSource lexer, List<String> errors, String naam) {
+        BaseErrorListener foutVerzamelaar = foutVerzamelaar(errors);
+        AST ast;
+        int[] statementGrenzen = new int[0];
+        boolean opnieuw = false;
+        long grootte = lexer.getInputStream().size();
+        ParseEvent parseEvent = new ParseEvent();
+        try {
+            CommonTokenStream tokens = new CommonTokenStream(lexer);
+            LexEvent lexEvent = new LexEvent();
+            lexEvent.begin();
+            tokens.fill();
+            lexEvent.end();
+            int lexerFouten = errors.size();
+            if (lexEvent.shouldCommit()) {
+                naam = bronVan(lexer, naam);
+                lexEvent.source = naam;
+                lexEvent.sourceSize = grootte;
+                lexEvent.tokens = tokens.size();
+                lexEvent.errors = lexerFouten;
+                lexEvent.commit();
+            }
+            parseEvent.begin();
+
+            //Parse (with Antlr's generated parser), eerst snel met SLL.
+            //De listener bouwt de AST terwijl de parser loopt; er komt geen parse tree.
+            ICSSParser parser = new ICSSParser(tokens);
+            parser.removeErrorListeners();
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new StopBijFout());
+            ASTListener listener = new ASTListener();
+            listener.attach(parser);
+            sllParses.incrementAndGet();
+
+            try {
+                parser.stylesheet();
+            } catch (ParseCancellationException e) {
+                // Fout of te lastig voor SLL: opnieuw met volledig LL, nu met foutmeldingen en een
+                // nieuwe listener. De tokens zijn al gebufferd, de lexer (en zijn meldingen) doet niet nog een keer mee.
+                llFallbacks.incrementAndGet();
+                opnieuw = true;
+                tokens.seek(0);
+                parser.reset();
+                parser.addErrorListener(foutVerzamelaar);
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+                listener = new ASTListener();
+                listener.attach(parser);
+                try {
+                    parser.stylesheet();
+                } catch (RuntimeException fout) {
+                    // Een door ANTLR "gerepareerd" stuk past niet altijd in de listener. Dan zonder
+                    // listener opnieuw, zodat alle syntax errors gemeld worden zoals anders ook.
+                    if (errors.isEmpty()) throw fout;
+                    errors.subList(lexerFouten, errors.size()).clear();
+                    tokens.seek(0);
+                    parser.reset();
+                    parser.removeParseListeners();
+                    parser.stylesheet();
+                    listener = null;
+                }
+            }
+            if (listener != null) {
+                ast = listener.getAST();
+                statementGrenzen = listener.getStatementBoundaries();
+            } else {
+                ast = new AST();
+            }
+
+        } catch (RecognitionException e) {
+            ast = new AST();
+            errors.add(e.getMessage());
+
+        } catch (ParseCancellationException e) {
+            ast = new AST();
+            errors.add("Syntax error");
+        }
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            naam = bronVan(lexer, naam);
+            parseEvent.sourceSize = grootte;
+            parseEvent.fallback = opnieuw;
+            parseEvent.commitFor(naam, ast, errors.size());
+        }
+        return new ParseResult(ast, errors, statementGrenzen, naam, grootte);
+    }
+
+    // De bron voor de events: de bestandsnaam, anders een hash van (het begin van) de tekst.
+    // Alleen aangeroepen als er opgenomen wordt.
+    private static String bronVan(TokenSource lexer, String naam) {
+        if (naam != null) return naam;
+        CharStream invoer = lexer.getInputStream();
+        int lengte = invoer.size();
+        int hash = lengte == 0 ? 0 : invoer.getText(Interval.of(0, Math.min(lengte, MAP_THRESHOLD) - 1)).hashCode();
+        return "text@" + Integer.toHexString(hash) + "-" + lengte;
+    }
+
+    /**
+     * @return how many parses this compiler started (each first tries SLL)
+     */
+    public long getParseCount() {
+        return sllParses.get();
+    }
+
+    /**
+     * @return how many of those parses had to be redone with full LL, because the input has
+     *         syntax errors or needed LL's full context to decide
+     */
+    public long getFallbackParseCount() {
+        return llFallbacks.get();
+    }
+
+    /**
+     * Checks a copy of the parsed AST. When parsing failed the parse errors are passed on.
+     */
+    public CheckResult check(ParseResult parsed) {
+        String bron = parsed.getSourceId();
+        long grootte = parsed.getSourceSize();
+        if (!parsed.isSuccess()) {
+            return new CheckResult(parsed.getAST(), parsed.getErrors(), bron, grootte);
+        }
+        CheckEvent event = new CheckEvent();
+        event.begin();
+        AST ast = ASTCopier.copy(parsed.getAST());
+        List<String> errors = checkInPlace(ast);
+        event.end();
+        event.sourceSize = grootte;
+        event.commitFor(bron, ast, errors.size());
+        return new CheckResult(ast, errors, bron, grootte);
+    }
+
+    /**
+     * Evaluates the checked AST into a new AST; unchanged subtrees are shared, not copied.
+     * When checking failed its errors are passed on.
+     */
+    public TransformResult transform(CheckResult checked) {
+        String bron = checked.getSourceId();
+        long grootte = checked.getSourceSize();
+        if (!checked.isSuccess()) {
+            return new TransformResult(checked.getAST(), checked.getErrors(), bron, grootte);
+        }
+        TransformEvent event = new TransformEvent();
+        event.begin();
+        AST geoptimaliseerd = new IfOptimizer().optimize(checked.getAST());
+        AST ast = naTransformatie(new Evaluator().evaluate(geoptimaliseerd, Collections.emptyMap()));
+        event.end();
+        event.sourceSize = grootte;
+        event.commitFor(bron, ast, checked.getErrors().size());
+        return new TransformResult(ast, checked.getErrors(), bron, grootte);
+    }
+
+    /**
+     * Prepares a checked stylesheet for repeated evaluation, each time with other values for its
+     * top-level variables. When checking failed the template carries its errors.
+     */
+    public StylesheetTemplate template(CheckResult checked) {
+        return new StylesheetTemplate(checked, this);
+    }
+
+    public CssResult generate(TransformResult transformed) {
+        String bron = transformed.getSourceId();
+        long grootte = transformed.getSourceSize();
+        if (!transformed.isSuccess()) {
+            return new CssResult("", transformed.getErrors(), bron, grootte);
+        }
+        return new CssResult(generate(transformed.getAST(), bron, grootte), transformed.getErrors(), bron, grootte);
+    }
+
+    /**
+     * Runs all stages in one go. The intermediate ASTs never leave this method,
+     * so no copies are needed between the stages.
+     */
+    public CssResult compile(String source) {
+        TransformResult transformed = parseCheckTransform(source);
+        String bron = transformed.getSourceId();
+        long grootte = transformed.getSourceSize();
+        if (!transformed.isSuccess()) {
+            return new CssResult("", transformed.getErrors(), bron, grootte);
+        }
+        return new CssResult(generate(transformed.getAST(), bron, grootte), transformed.getErrors(), bron, grootte);
+    }
+
+    /**
+     * Like {@link #compile(String)}, but streams the CSS to out instead of building a String.
+     * Nothing is written when there are errors; out is not flushed or closed.
+     *
+     * @return the errors, empty when the CSS has been written
+     */
+    public List<String> compile(String source, Writer out) throws IOException {
+        TransformResult transformed = parseCheckTransform(source);
+        if (transformed.isSuccess()) {
+            GenerateEvent event = new GenerateEvent();
+            event.begin();
+            generator().generate(transformed.getAST(), out);
+            event.end();
+            event.sourceSize = transformed.getSourceSize();
+            event.commitFor(transformed.getSourceId(), transformed.getAST(), 0);
+        }
+        return transformed.getErrors();
+    }
+
+    // Genereren met een GenerateEvent.
+    String generate(AST ast, String bron, long sourceSize) {
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
+        String css = generator().generate(ast);
+        event.end();
+        event.sourceSize = sourceSize;
+        event.outputSize = css.length();
+        event.commitFor(bron, ast, 0);
+        return css;
+    }
+
+    // Alle stappen tot aan het genereren, in place. Bij fouten is de AST in het resultaat niet bruikbaar.
+    private TransformResult parseCheckTransform(String source) {
+        ParseResult parsed = parse(source);
+        String bron = parsed.getSourceId();
+        long grootte = parsed.getSourceSize();
+        if (!parsed.isSuccess()) {
+            return new TransformResult(parsed.getAST(), parsed.getErrors(), bron, grootte);
+        }
+        AST ast = parsed.getAST();
+        CheckEvent check = new CheckEvent();
+        check.begin();
+        List<String> errors = checkInPlace(ast);
+        check.end();
+        check.sourceSize = grootte;
+        check.commitFor(bron, ast, errors.size());
+        if (!errors.isEmpty()) {
+            return new TransformResult(ast, errors, bron, grootte);
+        }
+        TransformEvent transform = new TransformEvent();
+        transform.begin();
+        ast = new IfOptimizer().optimize(ast);
+        new Evaluator().apply(ast);
+        ast = naTransformatie(ast);
+        transform.end();
+        transform.sourceSize = grootte;
+        transform.commitFor(bron, ast, 0);
+        return new TransformResult(ast, errors, bron, grootte);
+    }
+
+    // Passes die alleen de uitvoer raken, afhankelijk van de opties.
+    AST naTransformatie(AST ast) {
+        if (options.isOptimize()) {
+            ast = new OutputOptimizer().optimize(ast);
+        }
+        return ast;
+    }
+
+    Generator generator() {
+        return new Generator(options.isMinify());
+    }
+
+    private static BaseErrorListener foutVerzamelaar(List<String> errors) {
+        return new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add("Syntax error: " + msg);
+            }
+        };
+    }
+
+    private static boolean bevatSurrogaat(String tekst) {
+        for (int i = 0; i < tekst.length(); i++) {
+            if (Character.isSurrogate(tekst.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    // Zoals BailErrorStrategy, maar de listener hoort niets meer van het afbreken: de regels die
+    // daarbij nog worden afgesloten passen niet bij wat hij heeft opgebouwd.
+    private static final class StopBijFout extends BailErrorStrategy {
+        @Override
+        public void recover(Parser recognizer, RecognitionException e) {
+            recognizer.removeParseListeners();
+            super.recover(recognizer, e);
+        }
+
+        @Override
+        public Token recoverInline(Parser recognizer) throws RecognitionException {
+            recognizer.removeParseListeners();
+            return super.recoverInline(recognizer);
+        }
+    }
+
+    private static List<String> checkInPlace(AST ast) {
+        new Checker().check(ast);
+        List<String> errors = new ArrayList<>();
+        for (SemanticError e : ast.getErrors()) {
+            errors.add(e.toString());
+        }
+        return errors;
+    }
+}
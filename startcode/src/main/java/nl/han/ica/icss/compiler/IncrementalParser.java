@@ -0,0 +1,141 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylesheet;
+
+import java.util.ArrayList;
+
+/**
+ * Re-parses an edited document by only lexing and parsing the top-level statements
+ * (ruleset, variableAssignment, ifClause) that touch the edited region.
+ *
+ * Statements outside that region are reused as-is, so their AST nodes keep their identity.
+ * Every call still returns a new {@link Stylesheet}, the previous result is left untouched.
+ * When the previous parse had errors, or the re-parsed region does not parse on its own,
+ * the whole document is parsed again.
+ *
+ * An instance remembers the previous document, so it belongs to a single editor and is not thread-safe.
+ */
+public class IncrementalParser {
+
+    private final ICSSCompiler compiler;
+
+    private String vorigeTekst;
+    private ParseResult vorigResultaat;
+    // Per statement (start, inclusieve stop) in vorigeTekst, parallel aan vorigResultaat.root.body.
+    private int[] vorigeGrenzen;
+
+    private int volledigeParses = 0;
+    private int incrementeleParses = 0;
+
+    public IncrementalParser() {
+        this(new ICSSCompiler());
+    }
+
+    public IncrementalParser(ICSSCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    public ParseResult parse(String tekst) {
+        if (vorigResultaat == null || !vorigResultaat.isSuccess()) {
+            return volledig(tekst);
+        }
+        if (tekst.equals(vorigeTekst)) {
+            return vorigResultaat;
+        }
+
+        // Gewijzigde stuk bepalen: alles tussen de gemeenschappelijke begin- en eindtekst.
+        int oudeLengte = vorigeTekst.length();
+        int nieuweLengte = tekst.length();
+        int voor = 0;
+        int max = Math.min(oudeLengte, nieuweLengte);
+        while (voor < max && vorigeTekst.charAt(voor) == tekst.charAt(voor)) voor++;
+        int na = 0;
+        while (na < max - voor && vorigeTekst.charAt(oudeLengte - 1 - na) == tekst.charAt(nieuweLengte - 1 - na)) na++;
+        int oudEinde = oudeLengte - na;   // exclusief, in de oude tekst
+        int nieuwEinde = nieuweLengte - na; // exclusief, in de nieuwe tekst
+        int verschuiving = nieuweLengte - oudeLengte;
+
+        // Statements die tegen het gewijzigde stuk aan liggen tellen mee, een token kan daar zijn gegroeid.
+        int aantal = vorigeGrenzen.length / 2;
+        int eerste = 0;
+        while (eerste < aantal && vorigeGrenzen[2 * eerste + 1] < voor - 1) eerste++;
+        int laatste = aantal - 1;
+        while (laatste >= eerste && vorigeGrenzen[2 * laatste] > oudEinde) laatste--;
+
+        int regioStart = voor;
+        int regioEinde = nieuwEinde;
+        if (eerste <= laatste) {
+            regioStart = Math.min(regioStart, vorigeGrenzen[2 * eerste]);
+            regioEinde = Math.max(regioEinde, vorigeGrenzen[2 * laatste + 1] + 1 + verschuiving);
+        }
+
+        ParseResult regio = compiler.parse(tekst.substring(regioStart, regioEinde));
+        int[] regioGrenzen = regio.statementBoundaries();
+        ArrayList<ASTNode> regioBody = regio.getAST().root.body;
+        if (!regio.isSuccess() || regioGrenzen.length != 2 * regioBody.size()) {
+            return volledig(tekst);
+        }
+
+        // Splicen: ongewijzigde statements ervoor, de nieuwe uit de regio, ongewijzigde erna (verschoven).
+        ArrayList<ASTNode> vorigeBody = vorigResultaat.getAST().root.body;
+        int nieuwAantal = eerste + regioBody.size() + (aantal - 1 - laatste);
+        ArrayList<ASTNode> body = new ArrayList<>(nieuwAantal);
+        int[] grenzen = new int[2 * nieuwAantal];
+        int j = 0;
+        for (int i = 0; i < eerste; i++, j++) {
+            body.add(vorigeBody.get(i));
+            grenzen[2 * j] = vorigeGrenzen[2 * i];
+            grenzen[2 * j + 1] = vorigeGrenzen[2 * i + 1];
+        }
+        for (int i = 0; i < regioBody.size(); i++, j++) {
+            body.add(regioBody.get(i));
+            grenzen[2 * j] = regioGrenzen[2 * i] + regioStart;
+            grenzen[2 * j + 1] = regioGrenzen[2 * i + 1] + regioStart;
+        }
+        for (int i = laatste + 1; i < aantal; i++, j++) {
+            body.add(vorigeBody.get(i));
+            grenzen[2 * j] = vorigeGrenzen[2 * i] + verschuiving;
+            grenzen[2 * j + 1] = vorigeGrenzen[2 * i + 1] + verschuiving;
+        }
+
+        incrementeleParses++;
+        return onthoud(tekst, new ParseResult(new AST(new Stylesheet(body)), regio.getErrors(), grenzen, null, tekst.length()));
+    }
+
+    /**
+     * Forgets the previous document, for example because its AST has been transformed in place.
+     */
+    public void reset() {
+        vorigeTekst = null;
+        vorigResultaat = null;
+        vorigeGrenzen = null;
+    }
+
+    public int getFullParseCount() {
+        return volledigeParses;
+    }
+
+    public int getIncrementalParseCount() {
+        return incrementeleParses;
+    }
+
+    private ParseResult volledig(String tekst) {
+        volledigeParses++;
+        ParseResult resultaat = compiler.parse(tekst);
+        if (resultaat.statementBoundaries().length != 2 * resultaat.getAST().root.body.size()) {
+            // Grenzen kloppen niet met de body (bijv. na een syntax error); niet incrementeel verder.
+            reset();
+            return resultaat;
+        }
+        return onthoud(tekst, resultaat);
+    }
+
+    private ParseResult onthoud(String tekst, ParseResult resultaat) {
+        vorigeTekst = tekst;
+        vorigResultaat = resultaat;
+        vorigeGrenzen = resultaat.statementBoundaries();
+        return resultaat;
+    }
+}
@@ -0,0 +1,38 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.AST;
+
+import java.util.List;
+
+/**
+ * Outcome of the parse stage: the (unchecked) AST plus any syntax errors.
+ * Instances are immutable; the AST they hold is never modified by the compiler afterwards.
+ */
+public final class ParseResult extends StageResult {
+
+    private final AST ast;
+    private final int[] statementBoundaries;
+
+    ParseResult(AST ast, List<String> errors) {
+        this(ast, errors, new int[0]);
+    }
+
+    ParseResult(AST ast, List<String> errors, int[] statementBoundaries) {
+        this(ast, errors, statementBoundaries, null, 0);
+    }
+
+    ParseResult(AST ast, List<String> errors, int[] statementBoundaries, String sourceId, long sourceSize) {
+        super(errors, sourceId, sourceSize);
+        this.ast = ast;
+        this.statementBoundaries = statementBoundaries;
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+
+    // (start, inclusieve stop) per top-level statement; niet gekopieerd, dus alleen binnen het package.
+    int[] statementBoundaries() {
+        return statementBoundaries;
+    }
+}
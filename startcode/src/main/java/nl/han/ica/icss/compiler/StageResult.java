@@ -0,0 +1,46 @@
+package nl.han.ica.icss.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Common part of all stage results: an unmodifiable list of error messages, and the identifier
+ * and size of the input, which are passed on from stage to stage.
+ */
+public abstract class StageResult {
+
+    private final List<String> errors;
+    private final String sourceId;
+    private final long sourceSize;
+
+    StageResult(List<String> errors, String sourceId, long sourceSize) {
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        this.sourceId = sourceId;
+        this.sourceSize = sourceSize;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Identifies the input in the JFR events of the stages (see nl.han.ica.icss.events): the file
+     * name, or a hash of the text. Null when it is not known, for example when no recording ran
+     * while parsing.
+     */
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * Length of the input in chars, for the JFR events of the stages. 0 when it is not known.
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
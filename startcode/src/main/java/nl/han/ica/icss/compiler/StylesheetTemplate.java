@@ -0,0 +1,163 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.ast.types.PrimitiveValues;
+import nl.han.ica.icss.events.GenerateEvent;
+import nl.han.ica.icss.events.TransformEvent;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.transforms.ExpressionProgram;
+import nl.han.ica.icss.transforms.IfOptimizer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A checked stylesheet that can be evaluated many times, each time with other values for its
+ * top-level variables. Made by {@link ICSSCompiler#template(CheckResult)}.
+ *
+ * The template keeps its own copy of the checked AST and never changes it, so one template can be
+ * rendered from many threads at the same time. Parsing and checking happen only once.
+ */
+public final class StylesheetTemplate {
+
+    private final AST ast;
+    private final ICSSCompiler compiler;
+    private final List<String> errors;
+    private final String bron;
+    private final long bronGrootte;
+    private final Map<String, ExpressionType> variabelen;
+
+    StylesheetTemplate(CheckResult checked, ICSSCompiler compiler) {
+        this.compiler = compiler;
+        this.errors = checked.getErrors();
+        this.bron = checked.getSourceId();
+        this.bronGrootte = checked.getSourceSize();
+        if (!checked.isSuccess()) {
+            this.ast = checked.getAST();
+            this.variabelen = Collections.emptyMap();
+            return;
+        }
+        AST kopie = ASTCopier.copy(checked.getAST());
+        Map<String, ExpressionType> globaal = new LinkedHashMap<>();
+        verzamelGlobaleVariabelen(kopie.root.body, globaal);
+        this.variabelen = Collections.unmodifiableMap(globaal);
+        // Ifs die niet van de overschrijfbare variabelen afhangen, kunnen nu al weg.
+        this.ast = new IfOptimizer(variabelen.keySet()).optimize(kopie);
+        // Alle programma's nu al compileren: daarna schrijft niemand meer in de boom.
+        compileerProgrammas(ast.root);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return the variables that are assigned in the global scope, with their type
+     */
+    public Map<String, ExpressionType> getVariables() {
+        return variabelen;
+    }
+
+    /**
+     * Evaluates the template with the given overrides for top-level variables.
+     * The result is a new AST; this template is not changed.
+     *
+     * @throws IllegalArgumentException when an override is not a top-level variable or has the wrong type
+     */
+    public TransformResult transform(Map<String, ? extends Literal> overrides) {
+        if (!isSuccess()) {
+            return new TransformResult(ast, errors, bron, bronGrootte);
+        }
+        controleer(overrides);
+        TransformEvent event = new TransformEvent();
+        event.begin();
+        AST resultaat = compiler.naTransformatie(new Evaluator().evaluate(ast, overrides));
+        event.end();
+        event.sourceSize = bronGrootte;
+        event.commitFor(bron, resultaat, 0);
+        return new TransformResult(resultaat, errors, bron, bronGrootte);
+    }
+
+    /**
+     * Evaluates the template with the given overrides and generates the CSS.
+     *
+     * @throws IllegalArgumentException when an override is not a top-level variable or has the wrong type
+     */
+    public CssResult render(Map<String, ? extends Literal> overrides) {
+        TransformResult transformed = transform(overrides);
+        if (!transformed.isSuccess()) {
+            return new CssResult("", errors, bron, bronGrootte);
+        }
+        return new CssResult(compiler.generate(transformed.getAST(), bron, bronGrootte), errors, bron, bronGrootte);
+    }
+
+    /**
+     * Like {@link #render(Map)}, but streams the CSS to out. Nothing is written when the template
+     * has errors; out is not flushed or closed.
+     *
+     * @return the errors, empty when the CSS has been written
+     */
+    public List<String> render(Map<String, ? extends Literal> overrides, Writer out) throws IOException {
+        TransformResult transformed = transform(overrides);
+        if (transformed.isSuccess()) {
+            GenerateEvent event = new GenerateEvent();
+            event.begin();
+            compiler.generator().generate(transformed.getAST(), out);
+            event.end();
+            event.sourceSize = bronGrootte;
+            event.commitFor(bron, transformed.getAST(), 0);
+        }
+        return errors;
+    }
+
+    private void controleer(Map<String, ? extends Literal> overrides) {
+        for (Map.Entry<String, ? extends Literal> overschrijving : overrides.entrySet()) {
+            ExpressionType verwacht = variabelen.get(overschrijving.getKey());
+            if (verwacht == null) {
+                throw new IllegalArgumentException("Not a top-level variable: " + overschrijving.getKey());
+            }
+            if (overschrijving.getValue() == null || PrimitiveValues.typeOf(overschrijving.getValue()) != verwacht) {
+                throw new IllegalArgumentException("Variable " + overschrijving.getKey() + " must be of type " + verwacht);
+            }
+        }
+    }
+
+    // Globale scope: de stylesheet zelf en de if/else-blokken daarin, niet de stylerules.
+    private static void verzamelGlobaleVariabelen(List<ASTNode> body, Map<String, ExpressionType> globaal) {
+        for (ASTNode knoop : body) {
+            if (knoop instanceof VariableAssignment) {
+                VariableAssignment toekenning = (VariableAssignment) knoop;
+                if (toekenning.expression != null) {
+                    globaal.putIfAbsent(toekenning.name.name, toekenning.expression.inferredType);
+                }
+            } else if (knoop instanceof IfClause) {
+                IfClause ifKnoop = (IfClause) knoop;
+                verzamelGlobaleVariabelen(ifKnoop.body, globaal);
+                if (ifKnoop.elseClause != null) {
+                    verzamelGlobaleVariabelen(ifKnoop.elseClause.body, globaal);
+                }
+            }
+        }
+    }
+
+    private static void compileerProgrammas(ASTNode knoop) {
+        if (knoop instanceof Expression) {
+            Expression expressie = (Expression) knoop;
+            if (!expressie.constant) ExpressionProgram.of(expressie);
+            return;
+        }
+        for (int i = 0; i < knoop.childCount(); i++) {
+            ASTNode kind = knoop.childAt(i);
+            if (kind != null) compileerProgrammas(kind);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.AST;
+
+import java.util.List;
+
+/**
+ * Outcome of the transform stage: an AST that only contains stylerules with literal declarations.
+ */
+public final class TransformResult extends StageResult {
+
+    private final AST ast;
+
+    TransformResult(AST ast, List<String> errors) {
+        this(ast, errors, null, 0);
+    }
+
+    TransformResult(AST ast, List<String> errors, String sourceId, long sourceSize) {
+        super(errors, sourceId, sourceSize);
+        this.ast = ast;
+    }
+
+    public AST getAST() {
+        return ast;
+    }
+}
@@ -0,0 +1,11 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nl.han.ica.icss.Check")
+@Label("ICSS Check")
+@Description("Checking the AST (Checker)")
+public final class CheckEvent extends StageEvent {
+}
@@ -0,0 +1,15 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nl.han.ica.icss.Generate")
+@Label("ICSS Generate")
+@Description("Writing the CSS (Generator)")
+public final class GenerateEvent extends StageEvent {
+
+    @Label("Output Size")
+    @Description("Length of the CSS in chars, 0 when it was streamed")
+    public long outputSize;
+}
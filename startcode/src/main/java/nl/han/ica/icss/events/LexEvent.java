@@ -0,0 +1,14 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nl.han.ica.icss.Lex")
+@Label("ICSS Lex")
+@Description("Turning the input into tokens")
+public final class LexEvent extends StageEvent {
+
+    @Label("Tokens")
+    public int tokens;
+}
@@ -0,0 +1,15 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nl.han.ica.icss.Parse")
+@Label("ICSS Parse")
+@Description("Parsing the tokens and building the AST, in one pass")
+public final class ParseEvent extends StageEvent {
+
+    @Label("LL Fallback")
+    @Description("The fast SLL parse failed and the input was parsed again with full LL")
+    public boolean fallback;
+}
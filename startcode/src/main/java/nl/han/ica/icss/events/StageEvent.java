@@ -0,0 +1,73 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.util.ArrayDeque;
+
+/**
+ * Common fields of the Java Flight Recorder events for the compiler stages.
+ *
+ * Use them as usual for JFR: begin() before the stage, and afterwards fill in the fields and
+ * commit() only when shouldCommit() is true (commitFor does both). Without a recording that
+ * check is all that runs, so counting nodes and the like costs nothing then. Record with for example
+ * {@code jcmd <pid> JFR.start} and look for the "ICSS" category.
+ */
+@Category({"ICSS", "Compiler"})
+@StackTrace(false)
+public abstract class StageEvent extends Event {
+
+    @Label("Source")
+    @Description("File name of the input, or a hash of its text")
+    public String source;
+
+    @Label("Source Size")
+    @Description("Length of the input in chars")
+    public long sourceSize;
+
+    @Label("Nodes")
+    @Description("Number of AST nodes produced (or, for generate, written)")
+    public int nodes;
+
+    @Label("Errors")
+    @Description("Number of errors after this stage")
+    public int errors;
+
+    /**
+     * Commits the event with these values when it is being recorded; otherwise does nothing
+     * (and does not count the nodes).
+     */
+    public void commitFor(String source, AST ast, int errors) {
+        if (shouldCommit()) {
+            this.source = source;
+            this.nodes = countNodes(ast);
+            this.errors = errors;
+            commit();
+        }
+    }
+
+    /**
+     * @return the number of nodes in the AST, 0 for none
+     */
+    public static int countNodes(AST ast) {
+        if (ast == null || ast.root == null) return 0;
+        // Zonder recursie, ook een diep geneste stylesheet kan geteld worden.
+        int aantal = 0;
+        ArrayDeque<ASTNode> todo = new ArrayDeque<>();
+        todo.push(ast.root);
+        while (!todo.isEmpty()) {
+            ASTNode knoop = todo.pop();
+            aantal++;
+            for (int i = 0; i < knoop.childCount(); i++) {
+                ASTNode kind = knoop.childAt(i);
+                if (kind != null) todo.push(kind);
+            }
+        }
+        return aantal;
+    }
+}
@@ -0,0 +1,11 @@
+package nl.han.ica.icss.events;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nl.han.ica.icss.Transform")
+@Label("ICSS Transform")
+@Description("Evaluating the checked AST into plain CSS rules (IfOptimizer, Evaluator, OutputOptimizer)")
+public final class TransformEvent extends StageEvent {
+}
@@ -2,6 +2,7 @@ package nl.han.ica.icss.generator;
 
 import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Declaration;
 import nl.han.ica.icss.ast.Expression;
 import nl.han.ica.icss.ast.Stylesheet;
@@ -16,8 +17,42 @@ import nl.han.ica.icss.ast.literals.PercentageLiteral;
 import nl.han.ica.icss.ast.literals.PixelLiteral;
 import nl.han.ica.icss.ast.literals.ScalarLiteral;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
 public class Generator {
 
+	/**
+	 * Size in chars of the buffer used when streaming. Output is handed to the target
+	 * whenever the rules written so far fill it, so memory use does not grow with the stylesheet.
+	 */
+	public static final int BUFFER_SIZE = 8192;
+
+	// Zonder overbodige witruimte en met korte schrijfwijzen (zie Generator(boolean)).
+	private final boolean minify;
+
+	public Generator() {
+		this(false);
+	}
+
+	/**
+	 * @param minify when true, leaves out all optional whitespace and the last semicolon of each
+	 *               rule, and writes colors and zero pixel values in their shortest form
+	 *               (#ffffff becomes #fff, 0px becomes 0). Applies to every generate method.
+	 */
+	public Generator(boolean minify) {
+		this.minify = minify;
+	}
+
+	/**
+	 * Convenience wrapper that returns the whole stylesheet as one String.
+	 */
 	public String generate(AST ast) {
 		// Geen AST? Geen output.
 		if (ast == null || ast.root == null) return "";
@@ -26,48 +61,102 @@ public class Generator {
 		StringBuilder css = new StringBuilder();
 
 		// Start bij het stylesheet en loop alles netjes af.
-		genereerStylesheet(ast.root, css, 0);
+		try {
+			genereerStylesheet(ast.root, css, 0, null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // kan niet, er is geen writer
+		}
 		return css.toString();
 	}
 
+	/**
+	 * Writes the stylesheet to out, rule by rule. The writer is not flushed or closed.
+	 */
+	public void generate(AST ast, Writer out) throws IOException {
+		if (ast == null || ast.root == null) return;
+		genereerStylesheet(ast.root, new StringBuilder(BUFFER_SIZE), 0, out);
+	}
+
+	/**
+	 * Writes the stylesheet to out as UTF-8 and flushes it; the stream is not closed.
+	 */
+	public void generate(AST ast, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		generate(ast, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Writes the stylesheet to the channel as UTF-8; the channel is not closed.
+	 */
+	public void generate(AST ast, WritableByteChannel out) throws IOException {
+		Writer writer = Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+		generate(ast, writer);
+		writer.flush();
+	}
+
 	// Loopt over de bovenste laag (stylesheet) en pakt alleen die stylerules mee.
-	private void genereerStylesheet(Stylesheet stijlblad, StringBuilder css, int inspringNiveau) {
+	// Met een writer wordt de buffer na elke regel geleegd zodra hij vol is; zonder blijft alles erin staan.
+	private void genereerStylesheet(Stylesheet stijlblad, StringBuilder css, int inspringNiveau, Writer uit) throws IOException {
+		char[] overdracht = uit != null ? new char[BUFFER_SIZE] : null;
 		for (ASTNode knoop : stijlblad.body) {
 			if (knoop instanceof Stylerule) {
 				genereerRegel((Stylerule) knoop, css, inspringNiveau);
+				if (uit != null && css.length() >= BUFFER_SIZE) {
+					overdracht = leeg(css, uit, overdracht);
+				}
 			}
 		}
+		if (uit != null && css.length() > 0) {
+			leeg(css, uit, overdracht);
+		}
+	}
+
+	// Buffer naar de writer en weer leeg maken; de char[] groeit alleen mee als een enkele regel groter is.
+	private char[] leeg(StringBuilder css, Writer uit, char[] overdracht) throws IOException {
+		int lengte = css.length();
+		if (overdracht.length < lengte) overdracht = new char[lengte];
+		css.getChars(0, lengte, overdracht, 0);
+		uit.write(overdracht, 0, lengte);
+		css.setLength(0);
+		return overdracht;
 	}
 
 	// Schrijft een hele CSS-regel (selectors + blok met declaraties).
 	private void genereerRegel(Stylerule stijlregel, StringBuilder css, int inspringNiveau) {
-		// Selectors aan elkaar plakken (met comma’s ertussen).
-		StringBuilder selectorTekst = new StringBuilder();
+		// Kop van de regel: "a, .menu {" (geminificeerd "a,.menu{"), selectors met comma's ertussen.
+		inspring(css, inspringNiveau);
 		for (int i = 0; i < stijlregel.selectors.size(); i++) {
-			if (i > 0) selectorTekst.append(", ");
-			selectorTekst.append(selectorNaarTekst(stijlregel.selectors.get(i)));
+			if (i > 0) css.append(minify ? "," : ", ");
+			css.append(selectorNaarTekst(stijlregel.selectors.get(i)));
 		}
-
-		// Kop van de regel: "a, .menu {"
-		inspring(css, inspringNiveau).append(selectorTekst).append(" {\n");
+		css.append(minify ? "{" : " {\n");
 
 		// De declaraties binnen de regel (ingesprongen).
+		boolean eerste = true;
 		for (ASTNode child : stijlregel.body) {
 			if (child instanceof Declaration) {
+				// Geminificeerd staat de ; alleen tussen declaraties, niet na de laatste.
+				if (minify && !eerste) css.append(';');
 				genereerDeclaratie((Declaration) child, css, inspringNiveau + 1);
+				eerste = false;
 			}
 		}
 
 		// Sluit de regel af met een accolade.
-		inspring(css, inspringNiveau).append("}\n");
+		inspring(css, inspringNiveau).append(minify ? "}" : "}\n");
 	}
 
-	// Schrijft een "property: value." regel.
+	// Schrijft een "property: value;" regel, of geminificeerd "property:value".
 	private void genereerDeclaratie(Declaration declaratie, StringBuilder css, int inspringNiveau) {
 		// Pak de echte property-naam (zit in 'name', niet via toString()).
 		String propertyNaam = (declaratie.property != null) ? declaratie.property.name : "";
 		String waardeTekst  = literalNaarCss(declaratie.expression);
 
+		if (minify) {
+			css.append(propertyNaam).append(':').append(waardeTekst);
+			return;
+		}
 		inspring(css, inspringNiveau)
 				.append(propertyNaam)
 				.append(": ")
@@ -77,42 +166,96 @@ public class Generator {
 
 	// Dit zet een Selector om naar de juiste CSS-tekst (#id, .class, of tag).
 	private String selectorNaarTekst(Selector selector) {
-		if (selector instanceof IdSelector) {
-			return "#" + ((IdSelector) selector).id;
-		}
-		if (selector instanceof ClassSelector) {
-			return "." + ((ClassSelector) selector).cls;
-		}
-		if (selector instanceof TagSelector) {
-			return ((TagSelector) selector).tag;
-		}
-		// Fallback (zou eigenlijk niet moeten gebeuren).
-		return selector.toString();
+		return selector.accept(naarCss);
 	}
 
 	// Zet een Literal om naar CSS (na transform zijn values Literal’s).
 	private String literalNaarCss(Expression expressie) {
-		if (expressie instanceof PixelLiteral) {
-			return ((PixelLiteral) expressie).value + "px";
+		// Niks? Dan maar leeg.
+		return expressie == null ? "" : expressie.accept(minify ? naarKorteCss : naarCss);
+	}
+
+	// Eén visitor voor selectors en literals: geeft de CSS-tekst van de knoop.
+	private static final ASTVisitor<String> naarCss = new ASTVisitor<>() {
+
+		// Fallback (zou eigenlijk niet moeten gebeuren), onbekend? Dan de toString.
+		@Override
+		public String visitNode(ASTNode knoop) {
+			return knoop.toString();
+		}
+
+		@Override
+		public String visitIdSelector(IdSelector selector) {
+			return "#" + selector.id;
+		}
+
+		@Override
+		public String visitClassSelector(ClassSelector selector) {
+			return "." + selector.cls;
 		}
-		if (expressie instanceof PercentageLiteral) {
-			return ((PercentageLiteral) expressie).value + "%";
+
+		@Override
+		public String visitTagSelector(TagSelector selector) {
+			return selector.tag;
 		}
-		if (expressie instanceof ColorLiteral) {
-			return ((ColorLiteral) expressie).value;
+
+		@Override
+		public String visitPixelLiteral(PixelLiteral literal) {
+			return literal.value + "px";
 		}
-		if (expressie instanceof BoolLiteral) {
-			return ((BoolLiteral) expressie).value ? "TRUE" : "FALSE";
+
+		@Override
+		public String visitPercentageLiteral(PercentageLiteral literal) {
+			return literal.value + "%";
 		}
-		if (expressie instanceof ScalarLiteral) {
-			return Integer.toString(((ScalarLiteral) expressie).value);
+
+		@Override
+		public String visitColorLiteral(ColorLiteral literal) {
+			return literal.value;
 		}
-		// Niks of onbekend? Dan maar leeg.
-		return expressie == null ? "" : expressie.toString();
-	}
 
-	// Twee spaties per inspring-niveau (zoals in de eisen staat).
+		@Override
+		public String visitBoolLiteral(BoolLiteral literal) {
+			return literal.value ? "TRUE" : "FALSE";
+		}
+
+		@Override
+		public String visitScalarLiteral(ScalarLiteral literal) {
+			return Integer.toString(literal.value);
+		}
+	};
+
+	// Zelfde als naarCss, maar met de kortste schrijfwijze die hetzelfde betekent.
+	private static final ASTVisitor<String> naarKorteCss = new ASTVisitor<>() {
+
+		@Override
+		public String visitNode(ASTNode knoop) {
+			return knoop.accept(naarCss);
+		}
+
+		// 0px is gewoon 0; bij procenten niet, want 0% is niet overal een lengte.
+		@Override
+		public String visitPixelLiteral(PixelLiteral literal) {
+			return literal.value == 0 ? "0" : literal.value + "px";
+		}
+
+		// #aabbcc wordt #abc als elk paar uit twee dezelfde tekens bestaat.
+		@Override
+		public String visitColorLiteral(ColorLiteral literal) {
+			String kleur = literal.value;
+			if (kleur == null || kleur.length() != 7 || kleur.charAt(0) != '#'
+					|| kleur.charAt(1) != kleur.charAt(2)
+					|| kleur.charAt(3) != kleur.charAt(4)
+					|| kleur.charAt(5) != kleur.charAt(6)) {
+				return kleur;
+			}
+			return new String(new char[] {'#', kleur.charAt(1), kleur.charAt(3), kleur.charAt(5)});
+		}
+	};
+
+	// Twee spaties per inspring-niveau (zoals in de eisen staat); geminificeerd niks.
 	private StringBuilder inspring(StringBuilder css, int niveaus) {
+		if (minify) return css;
 		for (int i = 0; i < niveaus; i++) {
 			css.append("  ");
 		}
@@ -48,15 +48,35 @@ public class ASTPane extends BorderPane {
      * @param ast
      */
     public void update(AST ast) {
-        content.setRoot(astNodeToTreeItem(ast.root));
+        content.setRoot(buildTree(ast));
     }
-    private TreeItem<ASTNode> astNodeToTreeItem(ASTNode astNode) {
+
+    /**
+     * Shows a tree that was built earlier with {@link #buildTree(AST)}, for example on a background thread.
+     * @param root
+     */
+    public void update(TreeItem<ASTNode> root) {
+        content.setRoot(root);
+    }
+
+    /**
+     * Builds the tree items for an AST. The items are not attached to the scene yet,
+     * so this may be called from any thread.
+     * @param ast
+     * @return the root item
+     */
+    public static TreeItem<ASTNode> buildTree(AST ast) {
+        return astNodeToTreeItem(ast.root);
+    }
+    private static TreeItem<ASTNode> astNodeToTreeItem(ASTNode astNode) {
 
         TreeItem<ASTNode> tvNode = new TreeItem<ASTNode>(astNode);
         tvNode.setExpanded(true);
 
-        for(ASTNode child : astNode.getChildren()) {
-            tvNode.getChildren().add(astNodeToTreeItem(child));
+        for(int i = 0; i < astNode.childCount(); i++) {
+            ASTNode child = astNode.childAt(i);
+            if(child != null)
+                tvNode.getChildren().add(astNodeToTreeItem(child));
         }
         return tvNode;
     }
@@ -2,6 +2,8 @@ package nl.han.ica.icss.gui;
 
 import javafx.scene.control.TextArea;
 
+import java.util.List;
+
 @SuppressWarnings("restriction")
 public class FeedbackPane extends TextArea {
 	public FeedbackPane() {
@@ -15,4 +17,11 @@ public class FeedbackPane extends TextArea {
 	public void addLine(String line) {
 		this.setText( this.getText() + "\n" + line);
 	}
+	public void setLines(List<String> lines) {
+		StringBuilder text = new StringBuilder();
+		for (String line : lines) {
+			text.append("\n").append(line);
+		}
+		this.setText(text.toString());
+	}
 }
@@ -6,6 +6,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.stream.Collectors;
 
+import javafx.beans.property.StringProperty;
 import javafx.geometry.Insets;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.control.TextArea;
@@ -39,4 +40,7 @@ public class InputPane extends BorderPane {
 	public String getText() {
 		return content.getText();
 	}
+	public StringProperty textProperty() {
+		return content.textProperty();
+	}
 }
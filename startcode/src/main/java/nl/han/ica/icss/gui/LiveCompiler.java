@@ -0,0 +1,158 @@
+package nl.han.ica.icss.gui;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.control.TreeItem;
+import javafx.util.Duration;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.CssResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.compiler.IncrementalParser;
+import nl.han.ica.icss.compiler.ParseResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compile-as-you-type support for the GUI.
+ *
+ * Edits are debounced on the JavaFX thread; the full pipeline then runs on a single background
+ * thread. A newer edit cancels the run in progress, and only the result of the latest run is
+ * handed to the UI (via Platform.runLater).
+ */
+class LiveCompiler {
+
+    private static final Duration WACHTTIJD = Duration.millis(250);
+
+    private final ICSSCompiler compiler = new ICSSCompiler();
+    // Alleen gebruikt op de achtergrond-thread, dus geen synchronisatie nodig.
+    private final IncrementalParser parser = new IncrementalParser(compiler);
+    private final ExecutorService achtergrond = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "icss-live-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong generatie = new AtomicLong();
+    private final PauseTransition debounce = new PauseTransition(WACHTTIJD);
+
+    private final Supplier<String> invoer;
+    private final Consumer<Resultaat> publiceer;
+    private Future<?> lopend;
+
+    LiveCompiler(Supplier<String> invoer, Consumer<Resultaat> publiceer) {
+        this.invoer = invoer;
+        this.publiceer = publiceer;
+        debounce.setOnFinished(e -> start());
+    }
+
+    /**
+     * Call on the FX thread whenever the input changed; compiles once typing pauses.
+     */
+    void inputChanged() {
+        generatie.incrementAndGet();
+        debounce.playFromStart();
+    }
+
+    /**
+     * Compile the current input right away (FX thread).
+     */
+    void compileNow() {
+        debounce.stop();
+        start();
+    }
+
+    /**
+     * Stops live compiling; a run still in progress will not publish anything.
+     */
+    void stop() {
+        debounce.stop();
+        generatie.incrementAndGet();
+        if (lopend != null) lopend.cancel(true);
+    }
+
+    void shutdown() {
+        stop();
+        achtergrond.shutdownNow();
+    }
+
+    private void start() {
+        long mijnGeneratie = generatie.incrementAndGet();
+        String tekst = invoer.get();
+        if (lopend != null) lopend.cancel(true);
+        lopend = achtergrond.submit(() -> compileer(tekst, mijnGeneratie));
+    }
+
+    private boolean verouderd(long mijnGeneratie) {
+        return generatie.get() != mijnGeneratie || Thread.currentThread().isInterrupted();
+    }
+
+    // Draait op de achtergrond-thread. Niemand leest de Future uit, dus een exception moet hier
+    // gemeld worden; anders blijft stil het vorige resultaat staan.
+    private void compileer(String tekst, long mijnGeneratie) {
+        Resultaat resultaat;
+        try {
+            resultaat = vertaal(tekst, mijnGeneratie);
+        } catch (RuntimeException e) {
+            resultaat = new Resultaat(e);
+        }
+        if (resultaat == null) return;
+        Resultaat teTonen = resultaat;
+        Platform.runLater(() -> {
+            if (generatie.get() == mijnGeneratie) publiceer.accept(teTonen);
+        });
+    }
+
+    // Tussen elke stap kijken of er al een nieuwere edit is; dan null.
+    private Resultaat vertaal(String tekst, long mijnGeneratie) {
+        long start = System.nanoTime();
+        ParseResult parsed = parser.parse(tekst);
+        if (verouderd(mijnGeneratie)) return null;
+
+        CheckResult checked = compiler.check(parsed);
+        if (verouderd(mijnGeneratie)) return null;
+
+        CssResult css = compiler.generate(compiler.transform(checked));
+        if (verouderd(mijnGeneratie)) return null;
+
+        // TreeItems zijn nog niet aan de scene gekoppeld, die mag ik hier dus al opbouwen.
+        AST getoond = checked.getAST() != null ? checked.getAST() : parsed.getAST();
+        TreeItem<ASTNode> boom = ASTPane.buildTree(getoond);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Resultaat(boom, css, millis);
+    }
+
+    /**
+     * Everything the panes need from one live run.
+     */
+    static final class Resultaat {
+        final TreeItem<ASTNode> boom;
+        final String css;
+        final List<String> meldingen;
+
+        Resultaat(TreeItem<ASTNode> boom, CssResult css, long millis) {
+            this.boom = boom;
+            this.css = css.getCss();
+            List<String> regels = new ArrayList<>(css.getErrors());
+            regels.add(css.isSuccess()
+                    ? "Live: compiled in " + millis + " ms"
+                    : "Live: " + css.getErrors().size() + " error(s), " + millis + " ms");
+            this.meldingen = Collections.unmodifiableList(regels);
+        }
+
+        // De compiler zelf ging onderuit: geen boom en geen CSS, alleen de melding.
+        Resultaat(RuntimeException fout) {
+            this.boom = null;
+            this.css = "";
+            this.meldingen = Collections.singletonList("Live: compiler failed: " + fout);
+        }
+    }
+}
@@ -43,9 +43,11 @@ public class MainGui extends Application {
     private Button checkButton;
     private Button transformButton;
     private Button generateButton;
+    private CheckBox liveBox;
 
     //Model
     private Pipeline pipeline;
+    private LiveCompiler liveCompiler;
 
 
     @Override
@@ -95,6 +97,23 @@ public class MainGui extends Application {
             }
         });
 
+        //Live mode: compile on a background thread while typing
+        liveCompiler = new LiveCompiler(inputPane::getText, me::showLiveResult);
+        liveBox = new CheckBox("Live");
+        liveBox.setPadding(new Insets(4, 0, 0, 10));
+        liveBox.selectedProperty().addListener((observable, wasLive, isLive) -> {
+            if (isLive) {
+                liveCompiler.compileNow();
+            } else {
+                liveCompiler.stop();
+            }
+        });
+        inputPane.textProperty().addListener((observable, oldText, newText) -> {
+            if (liveBox.isSelected()) {
+                liveCompiler.inputChanged();
+            }
+        });
+
         //Create menus
         MenuBar menuBar = new MenuBar();
 
@@ -167,7 +186,7 @@ public class MainGui extends Application {
         //Toolbar
         HBox toolbar = new HBox();
         toolbar.setPadding(new Insets(5, 5, 5, 5));
-        toolbar.getChildren().addAll(new Label("Pipeline: "), parseButton, checkButton, transformButton, generateButton);
+        toolbar.getChildren().addAll(new Label("Pipeline: "), parseButton, checkButton, transformButton, generateButton, liveBox);
         updateToolbar();
 
         BorderPane bottom = new BorderPane();
@@ -186,6 +205,19 @@ public class MainGui extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (liveCompiler != null) {
+            liveCompiler.shutdown();
+        }
+    }
+
+    private void showLiveResult(LiveCompiler.Resultaat result) {
+        feedbackPane.setLines(result.meldingen);
+        astPane.update(result.boom);
+        outputPane.setText(result.css);
+    }
+
     private void clear() {
         feedbackPane.clear();
         pipeline.clearErrors();
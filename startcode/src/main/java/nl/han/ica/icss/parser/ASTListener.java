@@ -1,6 +1,7 @@
 package nl.han.ica.icss.parser;
 
-import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.HANDataStructures;
+import nl.han.ica.datastructures.HANIntStack;
 import nl.han.ica.datastructures.IHANStack;
 import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.ast.ASTNode;
@@ -10,23 +11,34 @@ import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.selectors.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
-
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Builds the AST from parser events. Works both as a parse listener while the parser runs
+ * (see {@link #attach(Parser)}, no parse tree needed) and with a {@link org.antlr.v4.runtime.tree.ParseTreeWalker}
+ * over an existing parse tree. It therefore only uses what both give: the start and stop token of
+ * a rule, terminals in source order and exit events for labeled alternatives (a parse listener
+ * gets no enter events for those).
+ */
 public class ASTListener extends ICSSBaseListener {
 
 	private final AST ast;
 	private final IHANStack<ASTNode> containerStack;
-	private final HANStack<Expression> expressieStack = new HANStack<>();
-	private final HANStack<Integer> frameStack = new HANStack<>();
+	private final IHANStack<Expression> expressieStack = HANDataStructures.newStack();
+	private final HANIntStack frameStack = new HANIntStack();
 	private int expressieStackGrootte = 0;
-	private boolean elseActief = false;
+	// + en - (als token type) in volgorde; per optel-frame staat het startpunt op de frameStack.
+	private final HANIntStack operatorStack = new HANIntStack();
 	private boolean inIfVoorwaarde = false;
 	private StringBuilder ifCondBuffer = new StringBuilder();
+	// Begin- en eind-index (inclusief) van elk top-level statement, in paren achter elkaar.
+	private int[] statementGrenzen = new int[32];
+	private int aantalStatementGrenzen = 0;
 
 	public ASTListener() {
 		this.ast = new AST();  // Maak een nieuwe, lege AST aan.
-		this.containerStack = new HANStack<>();  // Stack klaarzetten voor het “hangen” van knopen.
-		System.out.println("ASTListener geladen van: " +
-				ASTListener.class.getProtectionDomain().getCodeSource().getLocation());
+		this.containerStack = HANDataStructures.newStack();  // Stack klaarzetten voor het “hangen” van knopen.
 	}
 
 
@@ -34,6 +46,23 @@ public class ASTListener extends ICSSBaseListener {
 		return ast;
 	}
 
+	/**
+	 * Lets the parser call this listener while it parses, without building a parse tree.
+	 * After parsing, {@link #getAST()} holds the result.
+	 */
+	public void attach(Parser parser) {
+		parser.setBuildParseTree(false);
+		parser.addParseListener(this);
+	}
+
+	/**
+	 * Character ranges of the top-level statements, in source order, as pairs of
+	 * (start index, inclusive stop index). Used for incremental re-parsing.
+	 */
+	public int[] getStatementBoundaries() {
+		return java.util.Arrays.copyOf(statementGrenzen, aantalStatementGrenzen);
+	}
+
 	// Push een knoop op de container-stack (wordt de “huidige ouder”).
 	private void push(ASTNode node) {
 		containerStack.push(node);
@@ -81,12 +110,12 @@ public class ASTListener extends ICSSBaseListener {
 	// Haal alle expressies op die sinds het gegeven frame-index zijn gepusht (in volgorde links naar rechts).
 	private java.util.List<Expression> pakOperandenSindsFrame(int indexVoor) {
 		int aantal = expressieStackGrootte - indexVoor;
-		java.util.List<Expression> exprs = new java.util.ArrayList<>(aantal);
-		for (int i = 0; i < aantal; i++) {
-			// pop in LIFO, vooraan toevoegen om volgorde links naar rechts te behouden
-			exprs.add(0, exprPop());
+		Expression[] exprs = new Expression[aantal];
+		for (int i = aantal - 1; i >= 0; i--) {
+			// pop in LIFO, van achter naar voren invullen om volgorde links naar rechts te behouden
+			exprs[i] = exprPop();
 		}
-		return exprs;
+		return new java.util.ArrayList<>(java.util.Arrays.asList(exprs));
 	}
 
 	//Stylesheet begginings
@@ -116,27 +145,28 @@ public class ASTListener extends ICSSBaseListener {
 	}
 
 
+	// Gelabelde alternatieven: alleen exit, want een parse listener krijgt voor deze geen enter.
 	@Override
-	public void enterIdSelector(ICSSParser.IdSelectorContext ctx) {
-		String tekst = ctx.ID_IDENT().getText().substring(1); // strip '#'
+	public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
+		String tekst = ctx.start.getText().substring(1); // strip '#'
 		hangAanOuder(new IdSelector(tekst)); // Voeg aan huidige rule toe.
 	}
 
 	@Override
-	public void enterClassSelector(ICSSParser.ClassSelectorContext ctx) {
-		String tekst = ctx.CLASS_IDENT().getText().substring(1); // strip '.'
+	public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
+		String tekst = ctx.start.getText().substring(1); // strip '.'
 		hangAanOuder(new ClassSelector(tekst));
 	}
 
 	@Override
-	public void enterTagSelector(ICSSParser.TagSelectorContext ctx) {
-		String tekst = ctx.LOWER_IDENT().getText(); // gewone tagnaam zoals 'p' of 'div'
+	public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
+		String tekst = ctx.start.getText(); // gewone tagnaam zoals 'p' of 'div'
 		hangAanOuder(new TagSelector(tekst));
 	}
 
 	@Override
 	public void enterDeclaration(ICSSParser.DeclarationContext ctx) {
-		Declaration declaratie = new Declaration(ctx.LOWER_IDENT().getText()); // property-naam
+		Declaration declaratie = new Declaration(ctx.start.getText()); // property-naam (eerste token)
 		push(declaratie); // Binnen deze declaratie komt eenn value expressie.
 		startFrame(); // Frame starten zodat ik de value bij elkaar kan rapen.
 
@@ -159,22 +189,33 @@ public class ASTListener extends ICSSBaseListener {
 
 	@Override
 	public void enterPrimaryExpr(ICSSParser.PrimaryExprContext ctx) {
-		if (ctx.PIXELSIZE() != null) {
-			int v = Integer.parseInt(ctx.PIXELSIZE().getText().replace("px", ""));
-			exprPush(new PixelLiteral(v));
-		} else if (ctx.PERCENTAGE() != null) {
-			int v = Integer.parseInt(ctx.PERCENTAGE().getText().replace("%", ""));
-			exprPush(new PercentageLiteral(v));
-		} else if (ctx.SCALAR() != null) {
-			exprPush(new ScalarLiteral(Integer.parseInt(ctx.SCALAR().getText())));
-		} else if (ctx.COLOR() != null) {
-			exprPush(new ColorLiteral(ctx.COLOR().getText()));
-		} else if (ctx.TRUE() != null) {
-			exprPush(new BoolLiteral(true));
-		} else if (ctx.FALSE() != null) {
-			exprPush(new BoolLiteral(false));
-		} else if (ctx.CAPITAL_IDENT() != null) {
-			exprPush(new VariableReference(ctx.CAPITAL_IDENT().getText()));
+		// Het eerste token is de hele primary (behalve bij [ ... ], daar zorgt additionExpr voor).
+		Token token = ctx.start;
+		String tekst = token.getText();
+		switch (token.getType()) {
+			case ICSSParser.PIXELSIZE:
+				exprPush(new PixelLiteral(Integer.parseInt(tekst.substring(0, tekst.length() - 2))));
+				break;
+			case ICSSParser.PERCENTAGE:
+				exprPush(new PercentageLiteral(Integer.parseInt(tekst.substring(0, tekst.length() - 1))));
+				break;
+			case ICSSParser.SCALAR:
+				exprPush(new ScalarLiteral(Integer.parseInt(tekst)));
+				break;
+			case ICSSParser.COLOR:
+				exprPush(new ColorLiteral(tekst));
+				break;
+			case ICSSParser.TRUE:
+				exprPush(new BoolLiteral(true));
+				break;
+			case ICSSParser.FALSE:
+				exprPush(new BoolLiteral(false));
+				break;
+			case ICSSParser.CAPITAL_IDENT:
+				exprPush(new VariableReference(tekst));
+				break;
+			default:
+				break;
 		}
 	}
 
@@ -203,6 +244,7 @@ public class ASTListener extends ICSSBaseListener {
 	// dis voor optellen en aftrekken
 	@Override
 	public void enterAdditionExpr(ICSSParser.AdditionExprContext ctx) {
+		frameStack.push(operatorStack.getSize()); // en van de operators (die komen via visitTerminal)
 		startFrame(); // onthoud startpunt van de termen (links dan naar rechts)
 	}
 
@@ -210,20 +252,20 @@ public class ASTListener extends ICSSBaseListener {
 	public void exitAdditionExpr(ICSSParser.AdditionExprContext ctx) {
 		int indexVoor = eindFrameIndex();
 		java.util.List<Expression> termen = pakOperandenSindsFrame(indexVoor);
-		if (termen.isEmpty()) return;
 
-		// operators in volgorde ( + of - ) uit de children halen
-		java.util.List<String> operators = new java.util.ArrayList<>();
-		for (int i = 0; i < ctx.getChildCount(); i++) {
-			String t = ctx.getChild(i).getText();
-			if ("+".equals(t) || "-".equals(t)) operators.add(t);
+		// operators in volgorde ( + of - ) van de operator-stack halen
+		int[] operators = new int[operatorStack.getSize() - frameStack.pop()];
+		for (int i = operators.length - 1; i >= 0; i--) {
+			operators[i] = operatorStack.pop();
 		}
+		if (termen.isEmpty()) return;
 
 		// Bouw links-associatief op: (((t0 op t1) op t2) op t3) …
 		Expression acc = termen.get(0);
-		for (int i = 0; i < operators.size(); i++) {
+		// (een LOWER_IDENT als operand levert geen expressie op, dan zijn er minder termen dan operators)
+		for (int i = 0; i < operators.length && i + 1 < termen.size(); i++) {
 			Expression rhs = termen.get(i + 1);
-			if ("+".equals(operators.get(i))) {
+			if (operators[i] == ICSSParser.PLUS) {
 				AddOperation add = new AddOperation();
 				add.lhs = acc;
 				add.rhs = rhs;
@@ -241,8 +283,8 @@ public class ASTListener extends ICSSBaseListener {
 	// if clause (Dus TRUE of FALSE of var-ref)
 	@Override
 	public void enterBoolExpression(ICSSParser.BoolExpressionContext ctx) {
-		// Maak de conditie-expressie uit de tekst
-		String txt = ctx.getText();
+		// Maak de conditie-expressie uit het (enige) token
+		String txt = ctx.start.getText();
 		Expression cond;
 		if ("TRUE".equals(txt)) {
 			cond = new BoolLiteral(true);
@@ -262,7 +304,7 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
 		VariableAssignment toekenning = new VariableAssignment(); // Nieuwe toekenning
-		toekenning.name = new VariableReference(ctx.CAPITAL_IDENT().getText());
+		toekenning.name = new VariableReference(ctx.start.getText()); // eerste token is de naam
 		push(toekenning);
 		startFrame(); // waarde van de variabele
 	}
@@ -282,34 +324,21 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void enterIfClause(ICSSParser.IfClauseContext ctx) {
 		IfClause ifNode = new IfClause();
-		// Conditie alvast proberen te vullen uit de parse tree (fallback naar TRUE).
-		Expression cond;
-		String txt = (ctx.boolExpression() != null) ? ctx.boolExpression().getText() : null;
-		if ("TRUE".equals(txt)) {
-			cond = new BoolLiteral(true);
-		} else if ("FALSE".equals(txt)) {
-			cond = new BoolLiteral(false);
-		} else if (txt != null && !txt.isEmpty()) {
-			cond = new VariableReference(txt);
-		} else {
-			cond = new BoolLiteral(true);
-		}
-		ifNode.conditionalExpression = cond;
-		startFrame(); // mocht ik nog iets met de conditie willen tracken
-		exprPush(cond); // consistent: ook op de expr-stack
+		// De echte conditie komt uit boolExpression (of de buffer); tot die tijd TRUE.
+		ifNode.conditionalExpression = new BoolLiteral(true);
+		startFrame(); // hier komt de conditie van boolExpression in
 		push(ifNode); // if-block is nu de actieve container
 
-		elseActief = false;
 		inIfVoorwaarde = false;
 		ifCondBuffer.setLength(0);
 	}
 
 	@Override
 	public void exitIfClause(ICSSParser.IfClauseContext ctx) {
-		// Als we uit een else  komen, eerst die container poppen.
-		if (elseActief) {
-			try { pop(); } catch (Exception ignored) {}
-			elseActief = false;
+		// Als we uit een else komen, eerst die container poppen. Niet via een vlag: een geneste if
+		// in het else-blok zou die alweer op false hebben gezet.
+		if (top() instanceof ElseClause) {
+			pop();
 		}
 
 		// Probeer een conditie uit het frame/buffer te halen als er nog niks was.
@@ -344,6 +373,12 @@ public class ASTListener extends ICSSBaseListener {
 	public void visitTerminal(org.antlr.v4.runtime.tree.TerminalNode node) {
 		int t = node.getSymbol().getType();
 
+		// + en - horen bij de additionExpr die nu open staat.
+		if (t == ICSSParser.PLUS || t == ICSSParser.MIN) {
+			operatorStack.push(t);
+			return;
+		}
+
 		// Start van een else-blok, maak (indien nodig) elseClause aan en push ‘m.
 		if (t == ICSSParser.ELSE && top() instanceof IfClause) {
 			IfClause ifNode = (IfClause) top();
@@ -351,7 +386,6 @@ public class ASTListener extends ICSSBaseListener {
 				ifNode.elseClause = new ElseClause();
 			}
 			push(ifNode.elseClause);
-			elseActief = true;
 			return;
 		}
 		// Tekst van de if-voorwaarde bufferen tussen en (fallback-scenario’s).
@@ -372,4 +406,15 @@ public class ASTListener extends ICSSBaseListener {
 	@Override
 	public void enterStatement(ICSSParser.StatementContext ctx) {
 	}
+
+	// Alleen statements direct onder de stylesheet; elk daarvan levert precies een knoop in Stylesheet.body.
+	@Override
+	public void exitStatement(ICSSParser.StatementContext ctx) {
+		if (!(ctx.getParent() instanceof ICSSParser.StylesheetContext) || ctx.start == null || ctx.stop == null) return;
+		if (aantalStatementGrenzen + 2 > statementGrenzen.length) {
+			statementGrenzen = java.util.Arrays.copyOf(statementGrenzen, statementGrenzen.length * 2);
+		}
+		statementGrenzen[aantalStatementGrenzen++] = ctx.start.getStartIndex();
+		statementGrenzen[aantalStatementGrenzen++] = ctx.stop.getStopIndex();
+	}
 }
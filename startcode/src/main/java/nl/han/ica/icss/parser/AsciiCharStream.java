@@ -0,0 +1,93 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CharStream over a buffer of ASCII bytes (index 0 is the first byte), for instance a
+ * memory-mapped file. Nothing is copied or decoded up front; only getText builds Strings.
+ * Behaves like ANTLR's own CodePointCharStream over the same text.
+ */
+class AsciiCharStream implements CharStream {
+
+    private final ByteBuffer bytes;
+    private final int grootte;
+    private int positie = 0;
+
+    AsciiCharStream(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.grootte = bytes.limit();
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.min(interval.a, grootte);
+        int lengte = Math.min(interval.b - interval.a + 1, grootte - start);
+        if (lengte <= 0) return "";
+        byte[] stuk = new byte[lengte];
+        bytes.get(start, stuk);
+        return new String(stuk, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void consume() {
+        if (positie >= grootte) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        positie++;
+    }
+
+    @Override
+    public int LA(int i) {
+        int index;
+        if (i > 0) {
+            index = positie + i - 1;
+            if (index >= grootte) return IntStream.EOF;
+        } else if (i < 0) {
+            index = positie + i;
+            if (index < 0) return IntStream.EOF;
+        } else {
+            return 0;
+        }
+        return bytes.get(index) & 0xff;
+    }
+
+    // Alles staat al in de buffer; markeren hoeft niet.
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return positie;
+    }
+
+    @Override
+    public void seek(int index) {
+        positie = index;
+    }
+
+    @Override
+    public int size() {
+        return grootte;
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, grootte - 1));
+    }
+}
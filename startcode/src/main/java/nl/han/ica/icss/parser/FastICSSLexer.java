@@ -0,0 +1,325 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written replacement for {@link ICSSLexer}: scans the characters (or ASCII bytes) directly instead of going
+ * through ANTLR's ATN/DFA machinery, and produces the same tokens (type, text, positions, line
+ * and column) and the same "token recognition error" messages.
+ *
+ * Positions are UTF-16 char offsets. For input without surrogate pairs (in ICSS those can only
+ * occur in invalid input) that is what ICSSLexer gives as well.
+ *
+ * Keep it in step with the lexer rules in ICSS.g4; FastICSSLexerTest compares the two.
+ */
+public class FastICSSLexer implements TokenSource {
+
+    // Precies een van de twee: tekens, of (ASCII) bytes.
+    private final char[] tekens;
+    private final ByteBuffer bytes;
+    private final int einde;
+    private final CharStream invoer;
+    private final Pair<TokenSource, CharStream> bron;
+    private TokenFactory<?> tokenFactory = CommonTokenFactory.DEFAULT;
+    private final List<ANTLRErrorListener> errorListeners = new ArrayList<>();
+
+    private int positie = 0;
+    private int regel = 1;
+    private int kolom = 0;
+    // Lengte van het herkende token (of van het gelezen stuk bij een fout), gezet door herken().
+    private int lengte;
+
+    public FastICSSLexer(char[] chars) {
+        this(CharBuffer.wrap(chars));
+    }
+
+    /**
+     * Scans the remaining chars of the buffer. The chars are shared when the buffer is backed by
+     * an array and starts at its first element; otherwise they are copied once.
+     */
+    public FastICSSLexer(CharBuffer chars) {
+        // ANTLR's CharStream over een char[] kan (nog) niet met een offset overweg.
+        if (!chars.hasArray() || chars.arrayOffset() + chars.position() != 0) {
+            CharBuffer kopie = CharBuffer.allocate(chars.remaining());
+            kopie.put(chars.duplicate()).flip();
+            chars = kopie;
+        }
+        this.tekens = chars.array();
+        this.bytes = null;
+        this.einde = chars.limit();
+        // Deelt de char[]; alleen nodig voor de tekst van tokens, en daar pas als erom gevraagd wordt.
+        this.invoer = CodePointCharStream.fromBuffer(CodePointBuffer.withChars(chars));
+        this.bron = new Pair<>(this, invoer);
+    }
+
+    /**
+     * Scans the remaining bytes of the buffer as ASCII text, without copying or decoding them,
+     * for example straight from a memory-mapped file. Every byte must be below 0x80; use
+     * {@link #isAscii(ByteBuffer)} to check, and decode other input to chars first.
+     */
+    public FastICSSLexer(ByteBuffer ascii) {
+        this.bytes = ascii.slice();
+        this.tekens = null;
+        this.einde = bytes.limit();
+        this.invoer = new AsciiCharStream(bytes);
+        this.bron = new Pair<>(this, invoer);
+    }
+
+    /**
+     * @return true when all remaining bytes of the buffer are ASCII (below 0x80)
+     */
+    public static boolean isAscii(ByteBuffer bytes) {
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            if (bytes.get(i) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Receives the lexer errors, like {@link org.antlr.v4.runtime.Recognizer#addErrorListener};
+     * the recognizer and exception passed to it are null.
+     */
+    public void addErrorListener(ANTLRErrorListener listener) {
+        errorListeners.add(listener);
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            // Witruimte overslaan (WS -> skip).
+            verder(scan(positie, WIT));
+            if (positie >= einde) {
+                int index = positie;
+                return tokenFactory.create(bron, Token.EOF, null, Token.DEFAULT_CHANNEL, index, index - 1, regel, kolom);
+            }
+
+            int start = positie;
+            int startRegel = regel;
+            int startKolom = kolom;
+            int soort = herken();
+            if (soort > 0) {
+                // In een token zit nooit een \n: de regel blijft gelijk.
+                positie += lengte;
+                kolom += lengte;
+                return tokenFactory.create(bron, soort, null, Token.DEFAULT_CHANNEL,
+                        start, positie - 1, startRegel, startKolom);
+            }
+            // Geen token: net als ANTLR het al gelezen stuk plus het foute teken melden en overslaan.
+            int tot = Math.min(positie + lengte + 1, einde);
+            meldFout(invoer.getText(Interval.of(start, tot - 1)), startRegel, startKolom);
+            verder(tot - positie);
+        }
+    }
+
+    // Het tokentype vanaf positie, met de langste match en bij gelijke lengte de eerste regel
+    // uit de grammatica, zoals ANTLR. 0 als er niets past.
+    private int herken() {
+        int i = positie;
+        char c = teken(i);
+        switch (c) {
+            case '[': lengte = 1; return ICSSLexer.BOX_BRACKET_OPEN;
+            case ']': lengte = 1; return ICSSLexer.BOX_BRACKET_CLOSE;
+            case '{': lengte = 1; return ICSSLexer.OPEN_BRACE;
+            case '}': lengte = 1; return ICSSLexer.CLOSE_BRACE;
+            case ';': lengte = 1; return ICSSLexer.SEMICOLON;
+            case '+': lengte = 1; return ICSSLexer.PLUS;
+            case '-': lengte = 1; return ICSSLexer.MIN;
+            case '*': lengte = 1; return ICSSLexer.MUL;
+            case ',': lengte = 1; return ICSSLexer.COMMA;
+            case ':':
+                if (i + 1 < einde && teken(i + 1) == '=') {
+                    lengte = 2;
+                    return ICSSLexer.ASSIGNMENT_OPERATOR;
+                }
+                lengte = 1;
+                return ICSSLexer.COLON;
+            case '#': {
+                int naam = scan(i + 1, KLEIN);
+                lengte = 1;
+                if (naam == 0) return 0;
+                // COLOR staat eerder in de grammatica dan ID_IDENT, dus wint bij precies 6 tekens.
+                lengte = 1 + naam;
+                return naam == 6 && scan(i + 1, HEX) >= 6 ? ICSSLexer.COLOR : ICSSLexer.ID_IDENT;
+            }
+            case '.': {
+                int naam = scan(i + 1, KLEIN);
+                lengte = 1 + naam;
+                return naam == 0 ? 0 : ICSSLexer.CLASS_IDENT;
+            }
+            default:
+                break;
+        }
+        if (c >= '0' && c <= '9') {
+            int cijfers = scan(i, CIJFER);
+            int na = i + cijfers;
+            if (na + 1 < einde && teken(na) == 'p' && teken(na + 1) == 'x') {
+                lengte = cijfers + 2;
+                return ICSSLexer.PIXELSIZE;
+            }
+            if (na < einde && teken(na) == '%') {
+                lengte = cijfers + 1;
+                return ICSSLexer.PERCENTAGE;
+            }
+            lengte = cijfers;
+            return ICSSLexer.SCALAR;
+        }
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+            // Sleutelwoorden staan voor de identifiers in de grammatica: die winnen bij gelijke lengte.
+            int woord;
+            int soort;
+            if (c >= 'a') {
+                woord = 1 + scan(i + 1, KLEIN);
+                soort = ICSSLexer.LOWER_IDENT;
+            } else {
+                woord = 1 + scan(i + 1, IDENT);
+                soort = ICSSLexer.CAPITAL_IDENT;
+            }
+            int sleutelwoord = sleutelwoord(i);
+            if (sleutelwoord != 0 && lengte >= woord) return sleutelwoord;
+            lengte = woord;
+            return soort;
+        }
+        lengte = 0;
+        return 0;
+    }
+
+    // IF, ELSE, TRUE of FALSE vanaf i (lengte gezet), of 0.
+    private int sleutelwoord(int i) {
+        switch (teken(i)) {
+            case 'i': case 'I':
+                lengte = 2;
+                return past(i, "if", true) ? ICSSLexer.IF : 0;
+            case 'e': case 'E':
+                lengte = 4;
+                return past(i, "else", true) ? ICSSLexer.ELSE : 0;
+            case 'T':
+                lengte = 4;
+                return past(i, "TRUE", false) ? ICSSLexer.TRUE : 0;
+            case 'F':
+                lengte = 5;
+                return past(i, "FALSE", false) ? ICSSLexer.FALSE : 0;
+            default:
+                return 0;
+        }
+    }
+
+    private boolean past(int i, String woord, boolean hoofdletterOngevoelig) {
+        if (i + woord.length() > einde) return false;
+        for (int k = 0; k < woord.length(); k++) {
+            char c = teken(i + k);
+            if (hoofdletterOngevoelig && c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != woord.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private char teken(int i) {
+        return tekens != null ? tekens[i] : (char) bytes.get(i);
+    }
+
+    // Aantal tekens vanaf i die bij de soort (een van de bits hieronder) horen.
+    private int scan(int i, int soort) {
+        int j = i;
+        while (j < einde) {
+            char c = teken(j);
+            if (c >= 128 || (SOORTEN[c] & soort) == 0) break;
+            j++;
+        }
+        return j - i;
+    }
+
+    // Tekenklassen uit de grammatica als bits per ASCII-teken; een tabel in plaats van losse vergelijkingen.
+    private static final int CIJFER = 1;  // [0-9]
+    private static final int HEX = 2;     // [0-9a-f]
+    private static final int KLEIN = 4;   // [a-z0-9\-]
+    private static final int IDENT = 8;   // [A-Za-z0-9_]
+    private static final int WIT = 16;    // [ \t\r\n]
+    private static final byte[] SOORTEN = new byte[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) SOORTEN[c] = CIJFER | HEX | KLEIN | IDENT;
+        for (char c = 'a'; c <= 'z'; c++) SOORTEN[c] = (byte) (KLEIN | IDENT | (c <= 'f' ? HEX : 0));
+        for (char c = 'A'; c <= 'Z'; c++) SOORTEN[c] = IDENT;
+        SOORTEN['-'] = KLEIN;
+        SOORTEN['_'] = IDENT;
+        SOORTEN[' '] = SOORTEN['\t'] = SOORTEN['\r'] = SOORTEN['\n'] = WIT;
+    }
+
+    // Schuift n tekens op en houdt regel en kolom bij zoals ANTLR: alleen \n begint een nieuwe regel.
+    private void verder(int n) {
+        int i = positie;
+        int tot = i + n;
+        int r = regel;
+        int k = kolom;
+        for (; i < tot; i++) {
+            if (teken(i) == '\n') {
+                r++;
+                k = 0;
+            } else {
+                k++;
+            }
+        }
+        positie = tot;
+        regel = r;
+        kolom = k;
+    }
+
+    private void meldFout(String tekst, int foutRegel, int foutKolom) {
+        StringBuilder weergave = new StringBuilder();
+        for (int k = 0; k < tekst.length(); k++) {
+            char c = tekst.charAt(k);
+            if (c == '\n') weergave.append("\\n");
+            else if (c == '\t') weergave.append("\\t");
+            else if (c == '\r') weergave.append("\\r");
+            else weergave.append(c);
+        }
+        String bericht = "token recognition error at: '" + weergave + "'";
+        for (ANTLRErrorListener listener : errorListeners) {
+            listener.syntaxError(null, null, foutRegel, foutKolom, bericht, null);
+        }
+    }
+
+    @Override
+    public int getLine() {
+        return regel;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return kolom;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return invoer;
+    }
+
+    @Override
+    public String getSourceName() {
+        return invoer.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        this.tokenFactory = factory;
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return tokenFactory;
+    }
+}
@@ -0,0 +1,419 @@
+package nl.han.ica.icss.synthetic;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of valid ICSS programs, for load and scaling tests.
+ *
+ * The same settings and seed always give the same program. Besides the source it computes the
+ * CSS the compiler should generate, by following the same rules as the checker and evaluator:
+ * <ul>
+ *     <li>every variable name has one fixed type;</li>
+ *     <li>a variable defined in an if/else block is only used inside that block (checker scopes),
+ *     but its value stays visible in the rest of the rule (the evaluator splices the block into the rule);</li>
+ *     <li>assigning to a global variable inside a rule shadows it for the rest of that rule only.</li>
+ * </ul>
+ *
+ * Settings are changed with the fluent setters, e.g.
+ * {@code new StylesheetGenerator().seed(42).rules(10_000).ifDepth(4).generate()}.
+ */
+public class StylesheetGenerator {
+
+    private static final ExpressionType[] TYPEN = {
+            ExpressionType.PIXEL, ExpressionType.PERCENTAGE, ExpressionType.SCALAR,
+            ExpressionType.COLOR, ExpressionType.BOOL
+    };
+    private static final String[] TAGS = {"p", "a", "div", "span", "ul", "li", "nav", "section", "h1", "h2"};
+    private static final String[] EIGENSCHAPPEN = {"color", "background-color", "width", "height"};
+    private static final int LOKALE_NAMEN = 20;
+
+    private long seed = 0;
+    private int rules = 100;
+    private int declarationsPerRule = 4;
+    private int ifDepth = 2;
+    private int variables = 20;
+    private double shadowing = 0.1;
+    private int expressionSize = 4;
+
+    public StylesheetGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Number of style rules in the program.
+     */
+    public StylesheetGenerator rules(int rules) {
+        this.rules = atLeast(0, rules, "rules");
+        return this;
+    }
+
+    /**
+     * Number of items (declarations, assignments, if-clauses) in a rule body; nested blocks get at most this many.
+     */
+    public StylesheetGenerator declarationsPerRule(int declarationsPerRule) {
+        this.declarationsPerRule = atLeast(1, declarationsPerRule, "declarationsPerRule");
+        return this;
+    }
+
+    /**
+     * Maximum nesting depth of if/else clauses; 0 gives no if-clauses at all.
+     */
+    public StylesheetGenerator ifDepth(int ifDepth) {
+        this.ifDepth = atLeast(0, ifDepth, "ifDepth");
+        return this;
+    }
+
+    /**
+     * Number of global variables, defined at the top of the program.
+     */
+    public StylesheetGenerator variables(int variables) {
+        this.variables = atLeast(0, variables, "variables");
+        return this;
+    }
+
+    /**
+     * Chance (0 to 0.5) that a statement reassigns a global variable: at the top level for all following
+     * rules, inside a rule only for the rest of that rule.
+     */
+    public StylesheetGenerator shadowing(double shadowing) {
+        if (shadowing < 0 || shadowing > 0.5) {
+            throw new IllegalArgumentException("shadowing must be between 0 and 0.5");
+        }
+        this.shadowing = shadowing;
+        return this;
+    }
+
+    /**
+     * Maximum number of operands in one expression.
+     */
+    public StylesheetGenerator expressionSize(int expressionSize) {
+        this.expressionSize = atLeast(1, expressionSize, "expressionSize");
+        return this;
+    }
+
+    public SyntheticStylesheet generate() {
+        return new Generatie().genereer();
+    }
+
+    private static int atLeast(int minimum, int waarde, String naam) {
+        if (waarde < minimum) {
+            throw new IllegalArgumentException(naam + " must be at least " + minimum);
+        }
+        return waarde;
+    }
+
+    // Alle toestand van een enkele generate()-aanroep, zodat de generator zelf herbruikbaar blijft.
+    private final class Generatie {
+
+        private final Random random = new Random(seed);
+        private final StringBuilder bron = new StringBuilder();
+        private final StringBuilder css = new StringBuilder();
+
+        // Globale variabelen per type, in volgorde van definitie (altijd zichtbaar voor de checker).
+        private final Map<ExpressionType, List<String>> globalen = new HashMap<>();
+        private final List<String> alleGlobalen = new ArrayList<>();
+        // Waarden zoals de evaluator ze ziet: eerst de regel-scope, dan de globale.
+        private final Map<String, Waarde> globaleWaarden = new HashMap<>();
+        private Map<String, Waarde> regelWaarden;
+        // Lokale variabelen per checker-scope (regel, if, else), binnenste achteraan.
+        private final List<List<String>> lokaleScopes = new ArrayList<>();
+
+        Generatie() {
+            for (ExpressionType type : TYPEN) {
+                globalen.put(type, new ArrayList<>());
+            }
+        }
+
+        SyntheticStylesheet genereer() {
+            for (int i = 0; i < variables; i++) {
+                String naam = "Var" + i;
+                ExpressionType type = TYPEN[i % TYPEN.length];
+                Term waarde = expressie(type, true);
+                bron.append(naam).append(" := ").append(waarde.tekst).append(";\n");
+                globaleWaarden.put(naam, waarde.waarde);
+                globalen.get(type).add(naam);
+                alleGlobalen.add(naam);
+            }
+            bron.append('\n');
+
+            for (int i = 0; i < rules; i++) {
+                if (!alleGlobalen.isEmpty() && random.nextDouble() < shadowing) {
+                    if (ifDepth > 0 && random.nextBoolean()) {
+                        globaleIf();
+                    } else {
+                        herdefinieerGlobale(0, true);
+                    }
+                }
+                regel();
+            }
+            return new SyntheticStylesheet(seed, bron.toString(), css.toString(), rules);
+        }
+
+        // ---------- statements ----------
+
+        private void regel() {
+            StringBuilder selectors = new StringBuilder();
+            int aantal = random.nextInt(8) == 0 ? 2 + random.nextInt(2) : 1;
+            for (int i = 0; i < aantal; i++) {
+                if (i > 0) selectors.append(", ");
+                int soort = random.nextInt(3);
+                if (soort == 0) {
+                    selectors.append(TAGS[random.nextInt(TAGS.length)]);
+                } else if (soort == 1) {
+                    selectors.append("#id-").append(random.nextInt(1000));
+                } else {
+                    selectors.append(".c-").append(random.nextInt(1000));
+                }
+            }
+            bron.append(selectors).append(" {\n");
+            css.append(selectors).append(" {\n");
+
+            regelWaarden = new HashMap<>();
+            lokaleScopes.add(new ArrayList<>());
+            blok(0, declarationsPerRule, true);
+            lokaleScopes.remove(lokaleScopes.size() - 1);
+            regelWaarden = null;
+
+            bron.append("}\n");
+            css.append("}\n");
+        }
+
+        private void blok(int diepte, int items, boolean uitvoeren) {
+            for (int i = 0; i < items; i++) {
+                double kans = random.nextDouble();
+                if (kans < shadowing && !alleGlobalen.isEmpty()) {
+                    herdefinieerGlobale(diepte + 1, uitvoeren);
+                } else if (kans < shadowing + 0.15) {
+                    lokaleToekenning(diepte + 1, uitvoeren);
+                } else if (kans < shadowing + 0.35 && diepte < ifDepth) {
+                    ifClause(diepte + 1, uitvoeren);
+                } else {
+                    declaratie(diepte + 1, uitvoeren);
+                }
+            }
+        }
+
+        private void declaratie(int inspringing, boolean uitvoeren) {
+            String eigenschap = EIGENSCHAPPEN[random.nextInt(EIGENSCHAPPEN.length)];
+            ExpressionType type = eigenschap.endsWith("color") ? ExpressionType.COLOR
+                    : random.nextBoolean() ? ExpressionType.PIXEL : ExpressionType.PERCENTAGE;
+            Term waarde = expressie(type, uitvoeren);
+            inspring(inspringing).append(eigenschap).append(": ").append(waarde.tekst).append(";\n");
+            if (uitvoeren) {
+                css.append("  ").append(eigenschap).append(": ").append(waarde.waarde.css()).append(";\n");
+            }
+        }
+
+        private void lokaleToekenning(int inspringing, boolean uitvoeren) {
+            int nummer = random.nextInt(LOKALE_NAMEN);
+            String naam = "Local" + nummer;
+            Term waarde = expressie(TYPEN[nummer % TYPEN.length], uitvoeren);
+            inspring(inspringing).append(naam).append(" := ").append(waarde.tekst).append(";\n");
+            if (uitvoeren) regelWaarden.put(naam, waarde.waarde);
+            lokaleScopes.get(lokaleScopes.size() - 1).add(naam);
+        }
+
+        private void herdefinieerGlobale(int inspringing, boolean uitvoeren) {
+            String naam = alleGlobalen.get(random.nextInt(alleGlobalen.size()));
+            Term waarde = expressie(TYPEN[Integer.parseInt(naam.substring(3)) % TYPEN.length], uitvoeren);
+            inspring(inspringing).append(naam).append(" := ").append(waarde.tekst).append(";\n");
+            if (uitvoeren) {
+                (regelWaarden != null ? regelWaarden : globaleWaarden).put(naam, waarde.waarde);
+            }
+        }
+
+        private void ifClause(int diepte, boolean uitvoeren) {
+            Term voorwaarde = blad(ExpressionType.BOOL, uitvoeren);
+            boolean waar = voorwaarde.waarde.waar;
+            int items = 1 + random.nextInt(declarationsPerRule);
+
+            inspring(diepte).append("if[").append(voorwaarde.tekst).append("] {\n");
+            lokaleScopes.add(new ArrayList<>());
+            blok(diepte, items, uitvoeren && waar);
+            lokaleScopes.remove(lokaleScopes.size() - 1);
+            inspring(diepte).append('}');
+            if (random.nextBoolean()) {
+                bron.append(" else {\n");
+                lokaleScopes.add(new ArrayList<>());
+                blok(diepte, 1 + random.nextInt(declarationsPerRule), uitvoeren && !waar);
+                lokaleScopes.remove(lokaleScopes.size() - 1);
+                inspring(diepte).append('}');
+            }
+            bron.append('\n');
+        }
+
+        // Op het hoogste niveau: alleen globale variabelen opnieuw toekennen, in een of beide takken.
+        private void globaleIf() {
+            Term voorwaarde = blad(ExpressionType.BOOL, true);
+            boolean waar = voorwaarde.waarde.waar;
+            bron.append("if[").append(voorwaarde.tekst).append("] {\n");
+            herdefinieerGlobale(1, waar);
+            bron.append('}');
+            if (random.nextBoolean()) {
+                bron.append(" else {\n");
+                herdefinieerGlobale(1, !waar);
+                bron.append('}');
+            }
+            bron.append('\n');
+        }
+
+        private StringBuilder inspring(int niveau) {
+            for (int i = 0; i < niveau; i++) {
+                bron.append('\t');
+            }
+            return bron;
+        }
+
+        // ---------- expressies ----------
+
+        private Term expressie(ExpressionType type, boolean uitvoeren) {
+            return expressie(type, 1 + random.nextInt(expressionSize), uitvoeren);
+        }
+
+        // Bouwt een expressie van het gegeven type met (ongeveer) dit aantal operanden.
+        // Blokhaken waar de voorrang anders een andere boom zou opleveren dan de bedoelde.
+        private Term expressie(ExpressionType type, int operanden, boolean uitvoeren) {
+            if (operanden <= 1 || type == ExpressionType.COLOR || type == ExpressionType.BOOL) {
+                return blad(type, uitvoeren);
+            }
+            int links = 1 + random.nextInt(operanden - 1);
+            int rechts = operanden - links;
+            int keuze = random.nextInt(3);
+
+            if (keuze < 2) {
+                Term lhs = expressie(type, links, uitvoeren);
+                Term rhs = expressie(type, rechts, uitvoeren);
+                boolean plus = keuze == 0;
+                int getal = plus ? lhs.waarde.getal + rhs.waarde.getal : lhs.waarde.getal - rhs.waarde.getal;
+                String tekst = lhs.tekst + (plus ? " + " : " - ") + haakjes(rhs, rhs.operator == '+');
+                return new Term(tekst, '+', new Waarde(type, getal));
+            }
+
+            // Vermenigvuldigen: minstens een kant is een scalar.
+            boolean scalarLinks = type == ExpressionType.SCALAR || random.nextBoolean();
+            Term lhs = expressie(scalarLinks ? ExpressionType.SCALAR : type, links, uitvoeren);
+            Term rhs = expressie(scalarLinks ? type : ExpressionType.SCALAR, rechts, uitvoeren);
+            String tekst = haakjes(lhs, lhs.operator == '+') + " * " + haakjes(rhs, rhs.operator != 0);
+            return new Term(tekst, '*', new Waarde(type, lhs.waarde.getal * rhs.waarde.getal));
+        }
+
+        private String haakjes(Term term, boolean nodig) {
+            return nodig ? "[" + term.tekst + "]" : term.tekst;
+        }
+
+        private Term blad(ExpressionType type, boolean uitvoeren) {
+            String variabele = random.nextBoolean() ? kiesVariabele(type) : null;
+            if (variabele != null) {
+                return new Term(variabele, (char) 0, waardeVan(variabele, type, uitvoeren));
+            }
+            switch (type) {
+                case PIXEL: {
+                    int getal = random.nextInt(500);
+                    return new Term(getal + "px", (char) 0, new Waarde(type, getal));
+                }
+                case PERCENTAGE: {
+                    int getal = random.nextInt(101);
+                    return new Term(getal + "%", (char) 0, new Waarde(type, getal));
+                }
+                case SCALAR: {
+                    int getal = 1 + random.nextInt(5);
+                    return new Term(Integer.toString(getal), (char) 0, new Waarde(type, getal));
+                }
+                case COLOR: {
+                    String kleur = String.format("#%06x", random.nextInt(0x1000000));
+                    return new Term(kleur, (char) 0, new Waarde(kleur));
+                }
+                default: {
+                    boolean waar = random.nextBoolean();
+                    return new Term(waar ? "TRUE" : "FALSE", (char) 0, new Waarde(waar));
+                }
+            }
+        }
+
+        // Een voor de checker zichtbare variabele van dit type: lokaal uit een omsluitende scope of globaal.
+        private String kiesVariabele(ExpressionType type) {
+            if (!lokaleScopes.isEmpty() && random.nextBoolean()) {
+                List<String> scope = lokaleScopes.get(random.nextInt(lokaleScopes.size()));
+                for (String naam : scope) {
+                    if (TYPEN[Integer.parseInt(naam.substring(5)) % TYPEN.length] == type) return naam;
+                }
+            }
+            List<String> kandidaten = globalen.get(type);
+            return kandidaten.isEmpty() ? null : kandidaten.get(random.nextInt(kandidaten.size()));
+        }
+
+        private Waarde waardeVan(String naam, ExpressionType type, boolean uitvoeren) {
+            Waarde waarde = regelWaarden != null ? regelWaarden.get(naam) : null;
+            if (waarde == null) waarde = globaleWaarden.get(naam);
+            if (waarde == null) {
+                // Alleen mogelijk in een tak die niet wordt uitgevoerd; de waarde doet er dan niet toe.
+                if (uitvoeren) throw new IllegalStateException("No value for " + naam);
+                return type == ExpressionType.COLOR ? new Waarde("#000000")
+                        : type == ExpressionType.BOOL ? new Waarde(false) : new Waarde(type, 0);
+            }
+            return waarde;
+        }
+    }
+
+    // Een stukje bron met de waarde die de evaluator eruit haalt; operator is '+' (ook voor -), '*' of 0.
+    private static final class Term {
+        final String tekst;
+        final char operator;
+        final Waarde waarde;
+
+        Term(String tekst, char operator, Waarde waarde) {
+            this.tekst = tekst;
+            this.operator = operator;
+            this.waarde = waarde;
+        }
+    }
+
+    // Uitgerekende waarde, met int-rekenkunde net als de evaluator.
+    private static final class Waarde {
+        final ExpressionType type;
+        final int getal;
+        final String kleur;
+        final boolean waar;
+
+        Waarde(ExpressionType type, int getal) {
+            this(type, getal, null, false);
+        }
+
+        Waarde(String kleur) {
+            this(ExpressionType.COLOR, 0, kleur, false);
+        }
+
+        Waarde(boolean waar) {
+            this(ExpressionType.BOOL, 0, null, waar);
+        }
+
+        private Waarde(ExpressionType type, int getal, String kleur, boolean waar) {
+            this.type = type;
+            this.getal = getal;
+            this.kleur = kleur;
+            this.waar = waar;
+        }
+
+        String css() {
+            switch (type) {
+                case PIXEL:
+                    return getal + "px";
+                case PERCENTAGE:
+                    return getal + "%";
+                case COLOR:
+                    return kleur;
+                case BOOL:
+                    return waar ? "TRUE" : "FALSE";
+                default:
+                    return Integer.toString(getal);
+            }
+        }
+    }
+}
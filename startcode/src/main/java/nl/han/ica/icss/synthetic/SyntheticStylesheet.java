@@ -0,0 +1,35 @@
+package nl.han.ica.icss.synthetic;
+
+/**
+ * A generated ICSS program together with the CSS the compiler should produce for it.
+ */
+public final class SyntheticStylesheet {
+
+    private final long seed;
+    private final String source;
+    private final String expectedCss;
+    private final int ruleCount;
+
+    SyntheticStylesheet(long seed, String source, String expectedCss, int ruleCount) {
+        this.seed = seed;
+        this.source = source;
+        this.expectedCss = expectedCss;
+        this.ruleCount = ruleCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getExpectedCss() {
+        return expectedCss;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+}
@@ -1,25 +1,31 @@
 package nl.han.ica.icss.transforms;
 
-import nl.han.ica.datastructures.HANLinkedList;
-import nl.han.ica.datastructures.IHANLinkedList;
+import nl.han.ica.datastructures.HANSymbolTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
 import nl.han.ica.icss.ast.*;
-import nl.han.ica.icss.ast.literals.*;
-import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.ast.types.PrimitiveValues;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 public class Evaluator implements Transform {
 
     // Ik hou een stack van scopes bij. Bovenaan ligt altijd de huidige scope.
     // In de scope map ik variabele namen naar Literalwaardes.
-    private IHANLinkedList<HashMap<String, Literal>> stackScopes = new HANLinkedList<>();
+    private IHANSymbolTable<Literal> stackScopes = new HANSymbolTable<>();
+
+    // Top-level variabelen die van buitenaf een vaste waarde krijgen (alleen via evaluate()).
+    private Map<String, ? extends Literal> overschrijvingen = Collections.emptyMap();
 
     @Override
     public void apply(AST ast) {
         // Start helemaal vers met een lege stack.
-        stackScopes = new HANLinkedList<>();
+        stackScopes = new HANSymbolTable<>();
+        overschrijvingen = Collections.emptyMap();
 
         // Eerst open ik een globale scope (geldt voor de hele stylesheet).
         openNieuweScope();
@@ -33,236 +39,299 @@ public class Evaluator implements Transform {
         sluitHuidigeScope();
     }
 
+    /**
+     * Non-destructive variant of {@link #apply}: evaluates a checked AST into a new AST and leaves
+     * the input as it is. The result is copy-on-write: a node whose evaluated form is the same as
+     * the original (a rule with only literal declarations, say) is shared with the input instead of
+     * copied, and so are selectors, property names and literals. Treat both trees as read-only.
+     *
+     * A variable in overrides gets the given value in the global scope: the override is defined up
+     * front and replaces every top-level assignment to that variable. Assignments inside a stylerule
+     * are not affected.
+     *
+     * An Evaluator is not thread-safe, but several Evaluators may evaluate the same AST at the same
+     * time once the programs of its expressions have been compiled (see {@link ExpressionProgram#of}):
+     * after that nothing writes to the input.
+     */
+    public AST evaluate(AST ast, Map<String, ? extends Literal> overrides) {
+        stackScopes = new HANSymbolTable<>();
+        overschrijvingen = overrides;
+        openNieuweScope();
+        for (Map.Entry<String, ? extends Literal> overschrijving : overrides.entrySet()) {
+            definieerVariabele(overschrijving.getKey(), overschrijving.getValue());
+        }
+
+        ArrayList<ASTNode> body = new ArrayList<>();
+        evalueerBody(ast.root.body, body);
+
+        sluitHuidigeScope();
+        overschrijvingen = Collections.emptyMap();
+        return new AST(zelfdeKnopen(ast.root.body, body) ? ast.root : new Stylesheet(body));
+    }
+
     // Scope helper dingetjes
     private void openNieuweScope() {
-        stackScopes.addFirst(new HashMap<>());
+        stackScopes.pushScope();
     }
 
     private void sluitHuidigeScope() {
-        if (stackScopes.getSize() > 0) {
-            stackScopes.removeFirst();
+        if (stackScopes.getDepth() > 0) {
+            stackScopes.popScope();
         }
     }
 
     private void definieerVariabele(String naam, Literal waarde) {
         // Gewoon in de bovenste (huidige) scope zetten of overschrijven.
-        stackScopes.getFirst().put(naam, waarde);
+        stackScopes.define(naam, waarde);
     }
 
+    // Eerst de huidige (bovenste) scope, dan de scopes daaronder; null als hij nergens staat.
     private Literal zoekVariabele(String naam) {
-        // Altijd eerst de huidige (bovenste) scope proberen.
-        try {
-            HashMap<String, Literal> top = stackScopes.getFirst();
-            if (top != null && top.containsKey(naam)) {
-                return top.get(naam);
-            }
-        } catch (Exception ignored) {
-            // geen scopes
-        }
-
-        // 2) Dan de overige scopes van binnen daarna buiten.
-        int n = stackScopes.getSize();
-        for (int i = n - 1; i >= 0; i--) {
-            HashMap<String, Literal> scope = stackScopes.get(i);
-            if (scope != null && scope.containsKey(naam)) {
-                return scope.get(naam);
-            }
-        }
-        return null;
+        return stackScopes.lookup(naam);
     }
 
 
     // Deku tree Traversal & transformaties
 
     // Ik verwerk de “echte” body-lijst van een knoop (dus de lijst die ik mag aanpassen).
-    // Daarin kan ik knopen vervangen/verwijderen/invoegen zonder gedoe.
+    // Ik bouw de nieuwe inhoud in een aparte lijst op en zet die er in een keer in terug:
+    // midden in een ArrayList splicen zou bij veel ifs kwadratisch worden.
     private void transformeerKinderen(ASTNode ouderKnoop) {
         List<ASTNode> bewerkbareLijst = modificeerbareBodyVan(ouderKnoop);
 
         if (bewerkbareLijst != null) {
-            // Index gestuurde forloop zodat ik tijdens het lopen veilig kan splicen.
-            for (int index = 0; index < bewerkbareLijst.size(); index++) {
-                ASTNode huidigeKnoop = bewerkbareLijst.get(index);
-
-                // Elke stylerule krijgt gewoon een eigen scope.
-                if (huidigeKnoop instanceof Stylerule) {
-                    openNieuweScope();
-                    transformeerKinderen(huidigeKnoop);
-                    sluitHuidigeScope();
-                    continue;
-                }
-
-                // IfClause uitvouwen:
-                // - conditie uitrekenen
-                // - if-body of else-body kiezen
-                // - IfClause zelf weghalen en vervangen door die gekozen body
-                if (huidigeKnoop instanceof IfClause) {
-                    IfClause ifKnoop = (IfClause) huidigeKnoop;
-
-                    // Conditie evalueren
-                    Literal voorwaarde = evalueerExpressie(ifKnoop.conditionalExpression);
-                    boolean isWaar = (voorwaarde instanceof BoolLiteral)
-                            && ((BoolLiteral) voorwaarde).value;
-
-                    // Body kiezen
-                    List<ASTNode> gekozenBody = isWaar
-                            ? new ArrayList<>(ifKnoop.body)
-                            : (ifKnoop.elseClause != null
-                            ? new ArrayList<>(ifKnoop.elseClause.body)
-                            : new ArrayList<>());
-
-                    //Eerst splicen:
-                    bewerkbareLijst.remove(index);
-
-                    if (!gekozenBody.isEmpty()) {
-                        bewerkbareLijst.addAll(index, gekozenBody);
-                        // Laat de hoofdloop de nieuw ingevoegde knopen bezoeken
-                        index -= 1;
-                    } else {
-                        // Hele if vervalt: stap eenn terug zodat volgende item netjes bezocht wordt
-                        index -= 1;
-                    }
-                    continue;
-                }
-
-                // Losse ElseClause zou eigenlijk niet hier moeten staan (normaal alleen als deel van IfClause),
-                // maar voor de zekerheid verwerk ik gewoon zijn kinderen.
-                if (huidigeKnoop instanceof ElseClause) {
-                    transformeerKinderen(huidigeKnoop);
-                    continue;
-                }
-
-                // Variabele assignment:
-                // - rechterkant uitrekenen naar een Literal
-                // - Literal terugzetten in de knoop
-                // - variabele in de huidige scope registreren
-                if (huidigeKnoop instanceof VariableAssignment) {
-                    VariableAssignment toekenning = (VariableAssignment) huidigeKnoop;
-                    Literal berekendeWaarde = evalueerExpressie(toekenning.expression);
-                    toekenning.expression = berekendeWaarde;
-                    definieerVariabele(toekenning.name.name, berekendeWaarde);
-                    transformeerKinderen(huidigeKnoop); // er kunnen theoretisch nog kinderen onder hangen
-                    continue;
-                }
-
-                // Declaration:
-                // - de value (expression) uitrekenen en vervangen door een Literal
-                if (huidigeKnoop instanceof Declaration) {
-                    Declaration declaratie = (Declaration) huidigeKnoop;
-                    if (declaratie.expression != null) {
-                        declaratie.expression = evalueerExpressie(declaratie.expression);
-                    }
-                    transformeerKinderen(huidigeKnoop);
-                    continue;
-                }
-
-                // Voor alle andere knopen gewoon dieper de boom in.
-                transformeerKinderen(huidigeKnoop);
-            }
+            List<ASTNode> nieuweInhoud = new ArrayList<>(bewerkbareLijst.size());
+            transformeerLijst(bewerkbareLijst, nieuweInhoud);
+            bewerkbareLijst.clear();
+            bewerkbareLijst.addAll(nieuweInhoud);
             return;
         }
-
         // Als een knoop geen “modificeerbare body” heeft (bv. een literal of selector),
         // loop ik gewoon over de children.
-        for (ASTNode kind : ouderKnoop.getChildren()) {
-            transformeerKinderen(kind);
+        for (int i = 0; i < ouderKnoop.childCount(); i++) {
+            ASTNode kind = ouderKnoop.childAt(i);
+            if (kind != null) transformeerKinderen(kind);
         }
     }
 
-    // Dit geeft me de echte ArrayList terug die ik mag aanpassen
-    // (dus niet een kopie) voor de knopen die dat soort body hebben.
-    private List<ASTNode> modificeerbareBodyVan(ASTNode knoop) {
-        if (knoop instanceof Stylesheet) return ((Stylesheet) knoop).body;
-        if (knoop instanceof Stylerule)  return ((Stylerule)  knoop).body;
-        if (knoop instanceof IfClause)   return ((IfClause)   knoop).body;
-        if (knoop instanceof ElseClause) return ((ElseClause) knoop).body;
-        return null;
+    // De visitor doet het werk per soort knoop; geeft hij een lijst terug, dan komt die lijst
+    // in de plaats van de knoop (zo verdwijnt een IfClause). Die knopen gaan zelf ook weer door
+    // de visitor, zodat een if in een if ook uitgevouwen wordt.
+    private void transformeerLijst(List<ASTNode> knopen, List<ASTNode> doel) {
+        for (ASTNode knoop : knopen) {
+            List<ASTNode> vervanging = knoop.accept(transformeerder);
+            if (vervanging == null) {
+                doel.add(knoop);
+            } else {
+                transformeerLijst(vervanging, doel);
+            }
+        }
     }
 
-    // De Expressies uitrekenen
+    private final ASTVisitor<List<ASTNode>> transformeerder = new ASTVisitor<>() {
 
-    // Ik reken een Expression uit en geef een Literal terug (Pixel/Percentage/Scalar/Color/Bool in dit geval).
-    private Literal evalueerExpressie(Expression expressie) {
-        if (expressie == null) return new ScalarLiteral(0);
+        // Voor alle andere knopen gewoon dieper de boom in.
+        @Override
+        public List<ASTNode> visitNode(ASTNode knoop) {
+            transformeerKinderen(knoop);
+            return null;
+        }
 
-        // Als het al een Literal is, ben ik klaar.
-        if (expressie instanceof PixelLiteral)      return (PixelLiteral) expressie;
-        if (expressie instanceof PercentageLiteral) return (PercentageLiteral) expressie;
-        if (expressie instanceof ScalarLiteral)     return (ScalarLiteral) expressie;
-        if (expressie instanceof ColorLiteral)      return (ColorLiteral) expressie;
-        if (expressie instanceof BoolLiteral)       return (BoolLiteral) expressie;
+        // Elke stylerule krijgt gewoon een eigen scope.
+        @Override
+        public List<ASTNode> visitStylerule(Stylerule regel) {
+            openNieuweScope();
+            transformeerKinderen(regel);
+            sluitHuidigeScope();
+            return null;
+        }
 
-        // Variabele-referentie, pak de huidige waarde uit de scopes.
-        if (expressie instanceof VariableReference) {
-            String naam = ((VariableReference) expressie).name;
-            Literal gevonden = zoekVariabele(naam);
-            // Als het niet gevonden is, val ik terug op iets veiligs.
-            return (gevonden != null) ? gevonden : new ScalarLiteral(0);
+        // IfClause uitvouwen:
+        // - conditie uitrekenen
+        // - if-body of else-body kiezen
+        // - IfClause zelf weghalen en vervangen door die gekozen body (dat doet transformeerLijst)
+        @Override
+        public List<ASTNode> visitIfClause(IfClause ifKnoop) {
+            return gekozenBody(ifKnoop);
         }
 
-        // Optellen / aftrekken: eerst links en rechts uitrekenen, daarna combineren.
-        if (expressie instanceof AddOperation || expressie instanceof SubtractOperation) {
-            Operation operatie = (Operation) expressie;
-            Literal links  = evalueerExpressie(operatie.lhs);
-            Literal rechts = evalueerExpressie(operatie.rhs);
-            boolean isPlus = expressie instanceof AddOperation;
-            return telOfTrekAf(links, rechts, isPlus);
+        // Losse ElseClause zou eigenlijk niet hier moeten staan (normaal alleen als deel van IfClause),
+        // maar voor de zekerheid verwerk ik gewoon zijn kinderen.
+        @Override
+        public List<ASTNode> visitElseClause(ElseClause elseKnoop) {
+            transformeerKinderen(elseKnoop);
+            return null;
         }
 
-        // Vermenigvuldigen: zelfde verhaal, eerst links/rechts uitrekenen.
-        if (expressie instanceof MultiplyOperation) {
-            Operation operatie = (Operation) expressie;
-            Literal links  = evalueerExpressie(operatie.lhs);
-            Literal rechts = evalueerExpressie(operatie.rhs);
-            return vermenigvuldig(links, rechts);
+        // Variabele assignment:
+        // - rechterkant uitrekenen naar een Literal
+        // - Literal terugzetten in de knoop
+        // - variabele in de huidige scope registreren
+        @Override
+        public List<ASTNode> visitVariableAssignment(VariableAssignment toekenning) {
+            toekenning.expression = voerUit(toekenning);
+            return null;
         }
 
-        // Onbekend type? Dan speel ik safe met 0.
-        return new ScalarLiteral(0);
+        // Declaration:
+        // - de value (expression) uitrekenen en vervangen door een Literal
+        @Override
+        public List<ASTNode> visitDeclaration(Declaration declaratie) {
+            if (declaratie.expression != null) {
+                declaratie.expression = evalueerExpressie(declaratie.expression);
+            }
+            return null;
+        }
+    };
+
+    // Conditie evalueren en de body kiezen die overblijft (de echte lijst, geen kopie).
+    private List<ASTNode> gekozenBody(IfClause ifKnoop) {
+        // (hoeft geen Literal te worden, alleen de waarheid telt)
+        boolean isWaar = reken(ifKnoop.conditionalExpression) == ExpressionType.BOOL
+                && machine.value != 0;
+        if (isWaar) return ifKnoop.body;
+        return ifKnoop.elseClause != null ? ifKnoop.elseClause.body : Collections.emptyList();
     }
 
-    // Rekenregels voor + en -:
-    // Alleen “hetzelfde” optellen/afrekken (px met px, % met %, scalar met scalar).
-    private Literal telOfTrekAf(Literal links, Literal rechts, boolean isOptellen) {
-        if (links instanceof PixelLiteral && rechts instanceof PixelLiteral) {
-            int a = ((PixelLiteral) links).value;
-            int b = ((PixelLiteral) rechts).value;
-            return new PixelLiteral(isOptellen ? a + b : a - b);
-        }
-        if (links instanceof PercentageLiteral && rechts instanceof PercentageLiteral) {
-            int a = ((PercentageLiteral) links).value;
-            int b = ((PercentageLiteral) rechts).value;
-            return new PercentageLiteral(isOptellen ? a + b : a - b);
+    // Rechterkant van een toekenning uitrekenen en de variabele in de huidige scope zetten.
+    // In de globale scope wint een overschrijving van buitenaf.
+    private Literal voerUit(VariableAssignment toekenning) {
+        String naam = toekenning.name.name;
+        Literal waarde = stackScopes.getDepth() == 1 && overschrijvingen.containsKey(naam)
+                ? overschrijvingen.get(naam)
+                : evalueerExpressie(toekenning.expression);
+        definieerVariabele(naam, waarde);
+        return waarde;
+    }
+
+    // Niet-destructief: loopt een body af en zet de uitgerekende knopen in een nieuwe lijst.
+    // De evalueerder voegt toe aan 'uitvoer'; een stylerule wisselt die even naar zijn eigen body.
+    private List<ASTNode> uitvoer;
+
+    private void evalueerBody(List<ASTNode> body, List<ASTNode> doel) {
+        List<ASTNode> vorige = uitvoer;
+        uitvoer = doel;
+        for (ASTNode knoop : body) {
+            knoop.accept(evalueerder);
         }
-        if (links instanceof ScalarLiteral && rechts instanceof ScalarLiteral) {
-            int a = ((ScalarLiteral) links).value;
-            int b = ((ScalarLiteral) rechts).value;
-            return new ScalarLiteral(isOptellen ? a + b : a - b);
+        uitvoer = vorige;
+    }
+
+    // Is de uitgerekende body precies dezelfde als het origineel (dezelfde knopen)? Dan kan het origineel blijven.
+    private static boolean zelfdeKnopen(List<ASTNode> origineel, List<ASTNode> uitgerekend) {
+        if (origineel.size() != uitgerekend.size()) return false;
+        for (int i = 0; i < origineel.size(); i++) {
+            if (origineel.get(i) != uitgerekend.get(i)) return false;
         }
-        // Andere combinaties komen normaal niet langs (checker blokkeert dat),
-        // maar als het toch gebeurt, houd ik het bij 0.
-        return new ScalarLiteral(0);
+        return true;
     }
 
-    // Rekenregels voor *:
-    // Minstens eenn kant moet scalar zijn
-    private Literal vermenigvuldig(Literal links, Literal rechts) {
-        if (links instanceof ScalarLiteral && rechts instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) links).value * ((ScalarLiteral) rechts).value);
+    private final ASTVisitor<Void> evalueerder = new ASTVisitor<>() {
+
+        // Iets onbekends neem ik gewoon over.
+        @Override
+        public Void visitNode(ASTNode knoop) {
+            uitvoer.add(knoop);
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule regel) {
+            Stylerule nieuweRegel = new Stylerule();
+            nieuweRegel.selectors.addAll(regel.selectors);
+            openNieuweScope();
+            evalueerBody(regel.body, nieuweRegel.body);
+            sluitHuidigeScope();
+            uitvoer.add(zelfdeKnopen(regel.body, nieuweRegel.body) ? regel : nieuweRegel);
+            return null;
+        }
+
+        // De gekozen body komt op de plek van de if, in dezelfde scope (net als bij apply).
+        @Override
+        public Void visitIfClause(IfClause ifKnoop) {
+            evalueerBody(gekozenBody(ifKnoop), uitvoer);
+            return null;
         }
-        if (links instanceof PixelLiteral && rechts instanceof ScalarLiteral) {
-            return new PixelLiteral(((PixelLiteral) links).value * ((ScalarLiteral) rechts).value);
+
+        @Override
+        public Void visitElseClause(ElseClause elseKnoop) {
+            evalueerBody(elseKnoop.body, uitvoer);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment toekenning) {
+            Literal waarde = voerUit(toekenning);
+            if (waarde == toekenning.expression) {
+                uitvoer.add(toekenning);
+                return null;
+            }
+            VariableAssignment nieuweToekenning = new VariableAssignment();
+            nieuweToekenning.name = toekenning.name;
+            nieuweToekenning.expression = waarde;
+            uitvoer.add(nieuweToekenning);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration declaratie) {
+            Expression waarde = declaratie.expression == null ? null : evalueerExpressie(declaratie.expression);
+            if (waarde == declaratie.expression) {
+                uitvoer.add(declaratie);
+                return null;
+            }
+            Declaration nieuweDeclaratie = new Declaration();
+            nieuweDeclaratie.property = declaratie.property;
+            nieuweDeclaratie.expression = waarde;
+            uitvoer.add(nieuweDeclaratie);
+            return null;
+        }
+    };
+
+    // Dit geeft me de echte ArrayList terug die ik mag aanpassen
+    // (dus niet een kopie) voor de knopen die dat soort body hebben.
+    private List<ASTNode> modificeerbareBodyVan(ASTNode knoop) {
+        if (knoop instanceof Stylesheet) return ((Stylesheet) knoop).body;
+        if (knoop instanceof Stylerule)  return ((Stylerule)  knoop).body;
+        if (knoop instanceof IfClause)   return ((IfClause)   knoop).body;
+        if (knoop instanceof ElseClause) return ((ElseClause) knoop).body;
+        return null;
+    }
+
+    // De Expressies uitrekenen
+
+    // Ik reken een Expression uit en geef een Literal terug (Pixel/Percentage/Scalar/Color/Bool in dit geval).
+    // Een losse literal of variabele hoeft niet uitgerekend te worden: die knoop gaat zo terug de boom in.
+    // Heeft de Checker de expressie al gevouwen, dan neem ik die waarde over zonder de boom in te gaan.
+    // Alles daartussen rekent in het register, en pas het eindresultaat wordt weer een Literal.
+    private Literal evalueerExpressie(Expression expressie) {
+        if (expressie instanceof Literal) return (Literal) expressie;
+        if (expressie != null && expressie.constant) {
+            return PrimitiveValues.toLiteral(expressie.inferredType, expressie.constantValue);
         }
-        if (links instanceof ScalarLiteral && rechts instanceof PixelLiteral) {
-            return new PixelLiteral(((ScalarLiteral) links).value * ((PixelLiteral) rechts).value);
+        if (expressie instanceof VariableReference) {
+            Literal gevonden = zoekVariabele(((VariableReference) expressie).name);
+            if (gevonden != null) return gevonden;
         }
-        if (links instanceof PercentageLiteral && rechts instanceof ScalarLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) links).value * ((ScalarLiteral) rechts).value);
+        ExpressionType type = reken(expressie);
+        return PrimitiveValues.toLiteral(type, machine.value);
+    }
+
+    // Het rekenwerk zelf doet een ExpressionProgram (gecompileerd en gecachet op de knoop).
+    // De machine is het "register": daar staat de waarde van de laatst uitgerekende expressie,
+    // de eenheid is wat reken() teruggeeft.
+    private final ExpressionProgram.Machine machine = new ExpressionProgram.Machine();
+    private final Function<String, Literal> variabelen = this::zoekVariabele;
+
+    private ExpressionType reken(Expression expressie) {
+        if (expressie == null) {
+            machine.value = 0;
+            return ExpressionType.SCALAR;
         }
-        if (links instanceof ScalarLiteral && rechts instanceof PercentageLiteral) {
-            return new PercentageLiteral(((ScalarLiteral) links).value * ((PercentageLiteral) rechts).value);
+        if (expressie.constant) {
+            machine.value = expressie.constantValue;
+            return expressie.inferredType;
         }
-        // Alles wat hier niet in past behandel ik weer als “doe maar 0”.
-        return new ScalarLiteral(0);
+        return ExpressionProgram.of(expressie).run(variabelen, machine);
     }
 }
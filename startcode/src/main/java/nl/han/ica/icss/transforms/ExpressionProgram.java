@@ -0,0 +1,289 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.ast.types.PrimitiveValues;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * An expression lowered to a flat instruction array for a small stack machine.
+ *
+ * Compiling walks the expression tree once; running the program after that is a single loop
+ * over an int[] without touching the AST or allocating. Values are unit-tagged longs as in
+ * {@link PrimitiveValues}, and the rules are the same as the Evaluator's: a combination that
+ * is not allowed gives scalar 0, and so does a variable that is not defined.
+ *
+ * A program only refers to constants and variable names, never to nodes, so it is immutable
+ * and can be shared between threads and between copies of the tree.
+ */
+public final class ExpressionProgram {
+
+    // Elke instructie is een int: opcode in de onderste 8 bits, operand (index) erboven.
+    private static final int CONST = 0;
+    private static final int LOAD = 1;
+    private static final int ADD = 2;
+    private static final int SUB = 3;
+    private static final int MUL = 4;
+
+    private final int[] code;
+    private final long[] constanten;
+    private final ExpressionType[] constanteTypen;
+    private final String[] variabelen;
+    private final int maxStapel;
+
+    private ExpressionProgram(Bouwer bouwer) {
+        code = Arrays.copyOf(bouwer.code, bouwer.lengte);
+        constanten = Arrays.copyOf(bouwer.constanten, bouwer.aantalConstanten);
+        constanteTypen = Arrays.copyOf(bouwer.constanteTypen, bouwer.aantalConstanten);
+        variabelen = Arrays.copyOf(bouwer.variabelen, bouwer.aantalVariabelen);
+        maxStapel = bouwer.maxDiepte;
+    }
+
+    /**
+     * The program for this expression, compiled on first use and cached on the node.
+     * Two threads may both compile and store a program for the same node; that race is harmless
+     * because programs are immutable and equal.
+     */
+    public static ExpressionProgram of(Expression expression) {
+        // Iets anders (of niets) in het vak: compileren en het vak overnemen.
+        Object gecompileerd = expression.compiled;
+        if (gecompileerd instanceof ExpressionProgram) {
+            return (ExpressionProgram) gecompileerd;
+        }
+        ExpressionProgram program = compile(expression);
+        expression.compiled = program;
+        return program;
+    }
+
+    /**
+     * Compiles the expression without looking at or filling the cache on the node.
+     * Subtrees the checker folded to a constant become a single instruction.
+     */
+    public static ExpressionProgram compile(Expression expression) {
+        Bouwer bouwer = new Bouwer();
+        bouwer.vertaal(expression);
+        return new ExpressionProgram(bouwer);
+    }
+
+    /**
+     * Runs the program. Variables are resolved through the given lookup, which returns null
+     * for a variable that is not defined. The result value is left in {@link Machine#value}.
+     *
+     * @return the unit of the result
+     */
+    public ExpressionType run(Function<String, Literal> variables, Machine machine) {
+        long[] waarden = machine.stapel(maxStapel);
+        ExpressionType[] typen = machine.typen;
+        int top = -1;
+        for (int instructie : code) {
+            int operand = instructie >>> 8;
+            switch (instructie & 0xFF) {
+                case CONST:
+                    top++;
+                    waarden[top] = constanten[operand];
+                    typen[top] = constanteTypen[operand];
+                    break;
+                case LOAD: {
+                    top++;
+                    // Onbekende variabele (null): scalar 0, net als in de Evaluator.
+                    Literal waarde = variables.apply(variabelen[operand]);
+                    typen[top] = PrimitiveValues.typeOf(waarde);
+                    waarden[top] = PrimitiveValues.valueOf(waarde);
+                    break;
+                }
+                case ADD:
+                case SUB: {
+                    top--;
+                    ExpressionType type = PrimitiveValues.sumType(typen[top], typen[top + 1]);
+                    waarden[top] = type == null ? 0
+                            : PrimitiveValues.sum(waarden[top], waarden[top + 1], (instructie & 0xFF) == ADD);
+                    typen[top] = type == null ? ExpressionType.SCALAR : type;
+                    break;
+                }
+                default: {
+                    top--;
+                    ExpressionType type = PrimitiveValues.productType(typen[top], typen[top + 1]);
+                    waarden[top] = type == null ? 0 : PrimitiveValues.product(waarden[top], waarden[top + 1]);
+                    typen[top] = type == null ? ExpressionType.SCALAR : type;
+                    break;
+                }
+            }
+        }
+        machine.value = waarden[0];
+        return typen[0];
+    }
+
+    /**
+     * Number of instructions.
+     */
+    public int length() {
+        return code.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder tekst = new StringBuilder();
+        for (int instructie : code) {
+            int operand = instructie >>> 8;
+            switch (instructie & 0xFF) {
+                case CONST:
+                    tekst.append("const ").append(constanteTypen[operand]).append(' ').append(constanten[operand]);
+                    break;
+                case LOAD:
+                    tekst.append("load ").append(variabelen[operand]);
+                    break;
+                case ADD:
+                    tekst.append("add");
+                    break;
+                case SUB:
+                    tekst.append("sub");
+                    break;
+                default:
+                    tekst.append("mul");
+                    break;
+            }
+            tekst.append('\n');
+        }
+        return tekst.toString();
+    }
+
+    /**
+     * Scratch space for running programs: the value stack and the result.
+     * Not thread-safe; use one per thread (or per Evaluator) and reuse it.
+     */
+    public static final class Machine {
+
+        /** Value of the last result; its unit is what {@link #run} returned. */
+        public long value;
+
+        private long[] waarden = new long[16];
+        private ExpressionType[] typen = new ExpressionType[16];
+
+        private long[] stapel(int nodig) {
+            if (waarden.length < nodig) {
+                waarden = new long[nodig];
+                typen = new ExpressionType[nodig];
+            }
+            return waarden;
+        }
+    }
+
+    // Vertaalt de boom in post-order naar instructies en houdt de stapeldiepte bij.
+    private static final class Bouwer implements ASTVisitor<Void> {
+        private int[] code = new int[8];
+        private int lengte;
+        private long[] constanten = new long[4];
+        private ExpressionType[] constanteTypen = new ExpressionType[4];
+        private int aantalConstanten;
+        private String[] variabelen = new String[4];
+        private int aantalVariabelen;
+        private int diepte;
+        private int maxDiepte = 1;
+
+        void vertaal(Expression expressie) {
+            if (expressie == null) {
+                constante(ExpressionType.SCALAR, 0);
+            } else if (expressie.constant) {
+                constante(expressie.inferredType, expressie.constantValue);
+            } else {
+                expressie.accept(this);
+            }
+        }
+
+        private void emit(int opcode, int operand, int stapelEffect) {
+            if (lengte == code.length) code = Arrays.copyOf(code, lengte * 2);
+            code[lengte++] = opcode | (operand << 8);
+            diepte += stapelEffect;
+            maxDiepte = Math.max(maxDiepte, diepte);
+        }
+
+        private void constante(ExpressionType type, long waarde) {
+            if (aantalConstanten == constanten.length) {
+                constanten = Arrays.copyOf(constanten, aantalConstanten * 2);
+                constanteTypen = Arrays.copyOf(constanteTypen, aantalConstanten * 2);
+            }
+            constanten[aantalConstanten] = waarde;
+            constanteTypen[aantalConstanten] = type;
+            emit(CONST, aantalConstanten++, 1);
+        }
+
+        private void bewerking(Operation operatie, int opcode) {
+            vertaal(operatie.lhs);
+            vertaal(operatie.rhs);
+            emit(opcode, 0, -1);
+        }
+
+        // Alles wat geen expressie is die ik ken: scalar 0.
+        @Override
+        public Void visitNode(ASTNode knoop) {
+            constante(ExpressionType.SCALAR, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitPixelLiteral(PixelLiteral literal) {
+            constante(ExpressionType.PIXEL, literal.value);
+            return null;
+        }
+
+        @Override
+        public Void visitPercentageLiteral(PercentageLiteral literal) {
+            constante(ExpressionType.PERCENTAGE, literal.value);
+            return null;
+        }
+
+        @Override
+        public Void visitScalarLiteral(ScalarLiteral literal) {
+            constante(ExpressionType.SCALAR, literal.value);
+            return null;
+        }
+
+        @Override
+        public Void visitColorLiteral(ColorLiteral literal) {
+            constante(ExpressionType.COLOR, PrimitiveValues.packColor(literal.value));
+            return null;
+        }
+
+        @Override
+        public Void visitBoolLiteral(BoolLiteral literal) {
+            constante(ExpressionType.BOOL, literal.value ? 1 : 0);
+            return null;
+        }
+
+        // Dezelfde naam twee keer in een expressie krijgt dezelfde index.
+        @Override
+        public Void visitVariableReference(VariableReference referentie) {
+            int index = 0;
+            while (index < aantalVariabelen && !Objects.equals(variabelen[index], referentie.name)) index++;
+            if (index == aantalVariabelen) {
+                if (aantalVariabelen == variabelen.length) variabelen = Arrays.copyOf(variabelen, aantalVariabelen * 2);
+                variabelen[aantalVariabelen++] = referentie.name;
+            }
+            emit(LOAD, index, 1);
+            return null;
+        }
+
+        @Override
+        public Void visitAddOperation(AddOperation operatie) {
+            bewerking(operatie, ADD);
+            return null;
+        }
+
+        @Override
+        public Void visitSubtractOperation(SubtractOperation operatie) {
+            bewerking(operatie, SUB);
+            return null;
+        }
+
+        @Override
+        public Void visitMultiplyOperation(MultiplyOperation operatie) {
+            bewerking(operatie, MUL);
+            return null;
+        }
+    }
+}
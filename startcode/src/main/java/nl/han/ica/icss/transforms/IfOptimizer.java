@@ -0,0 +1,184 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes if/else where the condition is known before evaluation, in one linear pass over a
+ * checked AST.
+ *
+ * A condition is known when the checker folded it to a constant (TRUE, FALSE) or when it is a
+ * variable that is assigned exactly once in the whole stylesheet, to such a constant. The branch
+ * that is taken replaces the IfClause in its parent body (like the Evaluator does), the other
+ * branch is dropped, and nested ifs inside it are handled the same way. Ifs with a condition that
+ * is not known are kept, with their bodies optimized.
+ *
+ * Copy-on-write, like {@link Evaluator#evaluate}: the result shares every unchanged node with the
+ * input and the input is not changed.
+ */
+public class IfOptimizer {
+
+    // Variabelen die van buitenaf nog een andere waarde kunnen krijgen (template), nooit constant.
+    private final Set<String> overschrijfbaar;
+
+    private Map<String, Integer> aantalToekenningen;
+    private Map<String, Expression> toegekendeWaarde;
+
+    private List<ASTNode> uitvoer;
+    private int verwijderdeIfs;
+
+    public IfOptimizer() {
+        this(Collections.emptySet());
+    }
+
+    /**
+     * @param overridable variables that may get another value at evaluation time (see
+     *                    {@link Evaluator#evaluate}); conditions on these are never resolved
+     */
+    public IfOptimizer(Set<String> overridable) {
+        this.overschrijfbaar = overridable;
+    }
+
+    public AST optimize(AST ast) {
+        aantalToekenningen = new HashMap<>();
+        toegekendeWaarde = new HashMap<>();
+        verwijderdeIfs = 0;
+        ast.root.accept(teller);
+
+        ArrayList<ASTNode> body = optimaliseerBody(ast.root.body);
+        return body == ast.root.body ? ast : new AST(new Stylesheet(body));
+    }
+
+    /**
+     * @return the number of IfClauses the last call to optimize resolved
+     */
+    public int getRemovedIfCount() {
+        return verwijderdeIfs;
+    }
+
+    // Eerste ronde: hoe vaak wordt elke variabele toegekend, en waaraan (de laatste).
+    private final ASTVisitor<Void> teller = new ASTVisitor<>() {
+        @Override
+        public Void visitNode(ASTNode knoop) {
+            for (int i = 0; i < knoop.childCount(); i++) {
+                ASTNode kind = knoop.childAt(i);
+                if (kind != null) kind.accept(this);
+            }
+            return null;
+        }
+
+        // In expressies staan geen toekenningen.
+        @Override
+        public Void visitExpression(Expression expressie) {
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment toekenning) {
+            aantalToekenningen.merge(toekenning.name.name, 1, Integer::sum);
+            toegekendeWaarde.put(toekenning.name.name, toekenning.expression);
+            return null;
+        }
+    };
+
+    // De constante (gevouwen) expressie achter een naam, of null als de variabele niet vast ligt.
+    // Een keten A := B; B := TRUE volg ik ook, met een grens tegen rondjes.
+    private Expression constanteVariabele(String naam) {
+        for (int stap = 0; stap < 16; stap++) {
+            if (overschrijfbaar.contains(naam) || aantalToekenningen.getOrDefault(naam, 0) != 1) return null;
+            Expression waarde = toegekendeWaarde.get(naam);
+            if (waarde == null) return null;
+            if (waarde.constant) return waarde;
+            if (!(waarde instanceof VariableReference)) return null;
+            naam = ((VariableReference) waarde).name;
+        }
+        return null;
+    }
+
+    // TRUE/FALSE als de voorwaarde nu al vaststaat, anders null. Net als de Evaluator:
+    // alles wat geen boolean TRUE is, telt als onwaar.
+    private Boolean statischeWaarde(Expression voorwaarde) {
+        if (voorwaarde == null) return Boolean.FALSE;
+        Expression constante = voorwaarde.constant ? voorwaarde
+                : voorwaarde instanceof VariableReference ? constanteVariabele(((VariableReference) voorwaarde).name)
+                : null;
+        if (constante == null) return null;
+        return constante.inferredType == ExpressionType.BOOL && constante.constantValue != 0;
+    }
+
+    // Geeft dezelfde lijst terug als er niks veranderd is, anders een nieuwe.
+    private ArrayList<ASTNode> optimaliseerBody(ArrayList<ASTNode> body) {
+        ArrayList<ASTNode> nieuw = new ArrayList<>(body.size());
+        List<ASTNode> vorige = uitvoer;
+        uitvoer = nieuw;
+        for (ASTNode knoop : body) {
+            knoop.accept(herschrijver);
+        }
+        uitvoer = vorige;
+        return zelfdeKnopen(body, nieuw) ? body : nieuw;
+    }
+
+    private static boolean zelfdeKnopen(List<ASTNode> origineel, List<ASTNode> nieuw) {
+        if (origineel.size() != nieuw.size()) return false;
+        for (int i = 0; i < origineel.size(); i++) {
+            if (origineel.get(i) != nieuw.get(i)) return false;
+        }
+        return true;
+    }
+
+    private final ASTVisitor<Void> herschrijver = new ASTVisitor<>() {
+
+        // Declaraties, toekenningen en de rest: ongewijzigd over.
+        @Override
+        public Void visitNode(ASTNode knoop) {
+            uitvoer.add(knoop);
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule regel) {
+            ArrayList<ASTNode> body = optimaliseerBody(regel.body);
+            if (body == regel.body) {
+                uitvoer.add(regel);
+            } else {
+                Stylerule nieuweRegel = new Stylerule();
+                nieuweRegel.selectors.addAll(regel.selectors);
+                nieuweRegel.body = body;
+                uitvoer.add(nieuweRegel);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause ifKnoop) {
+            Boolean waarde = statischeWaarde(ifKnoop.conditionalExpression);
+            if (waarde != null) {
+                // De gekozen tak komt direct in de body van de ouder; de andere tak verdwijnt.
+                verwijderdeIfs++;
+                ArrayList<ASTNode> gekozen = waarde ? ifKnoop.body
+                        : ifKnoop.elseClause != null ? ifKnoop.elseClause.body : null;
+                if (gekozen != null) {
+                    // Meteen in de huidige uitvoer, zo kost ook een diepe nesting maar een ronde.
+                    for (ASTNode knoop : gekozen) knoop.accept(this);
+                }
+                return null;
+            }
+            ArrayList<ASTNode> body = optimaliseerBody(ifKnoop.body);
+            ElseClause elseKnoop = ifKnoop.elseClause;
+            if (elseKnoop != null) {
+                ArrayList<ASTNode> elseBody = optimaliseerBody(elseKnoop.body);
+                if (elseBody != elseKnoop.body) elseKnoop = new ElseClause(elseBody);
+            }
+            uitvoer.add(body == ifKnoop.body && elseKnoop == ifKnoop.elseClause ? ifKnoop
+                    : new IfClause(ifKnoop.conditionalExpression, body, elseKnoop));
+            return null;
+        }
+    };
+}
@@ -0,0 +1,130 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Makes the CSS of a transformed AST smaller without changing what it means.
+ *
+ * Within a rule only the last declaration of every property is kept, since the earlier ones are
+ * overridden anyway. Rules that end up empty are dropped. A rule whose declarations are the same
+ * as those of an earlier rule is merged into that rule's selector list, but only when no rule in
+ * between declares any of those properties: then moving the declarations forward cannot change
+ * the cascade.
+ *
+ * Copy-on-write, like the other passes: unchanged rules are shared with the input.
+ */
+public class OutputOptimizer {
+
+    public AST optimize(AST ast) {
+        ArrayList<ASTNode> uitvoer = new ArrayList<>(ast.root.body.size());
+
+        // Per set declaraties de index (in uitvoer) van de regel waar een volgende gelijke regel bij mag.
+        Map<String, Integer> regelMetDeclaraties = new HashMap<>();
+        // Per property de index van de laatste regel in uitvoer die hem zet.
+        Map<String, Integer> laatsteRegelMet = new HashMap<>();
+
+        for (ASTNode knoop : ast.root.body) {
+            if (!(knoop instanceof Stylerule)) {
+                uitvoer.add(knoop);
+                continue;
+            }
+            Stylerule regel = ontdubbel((Stylerule) knoop);
+            List<String> properties = propertiesVan(regel);
+            if (properties.isEmpty()) continue;
+
+            String sleutel = sleutelVan(regel);
+            Integer eerder = sleutel == null ? null : regelMetDeclaraties.get(sleutel);
+            if (eerder != null && !tussenliggendeRegelZet(properties, laatsteRegelMet, eerder)) {
+                uitvoer.set(eerder, voegSelectorsToe((Stylerule) uitvoer.get(eerder), regel));
+                continue;
+            }
+
+            int index = uitvoer.size();
+            uitvoer.add(regel);
+            if (sleutel != null) regelMetDeclaraties.put(sleutel, index);
+            for (String property : properties) {
+                laatsteRegelMet.put(property, index);
+            }
+        }
+        return zelfdeKnopen(ast.root.body, uitvoer) ? ast : new AST(new Stylesheet(uitvoer));
+    }
+
+    // Alleen de laatste declaratie per property blijft staan, op zijn eigen plek.
+    private static Stylerule ontdubbel(Stylerule regel) {
+        Set<String> gezien = new HashSet<>();
+        ArrayList<ASTNode> omgekeerd = new ArrayList<>(regel.body.size());
+        for (int i = regel.body.size() - 1; i >= 0; i--) {
+            ASTNode knoop = regel.body.get(i);
+            if (knoop instanceof Declaration && !gezien.add(propertyVan((Declaration) knoop))) continue;
+            omgekeerd.add(knoop);
+        }
+        if (omgekeerd.size() == regel.body.size()) return regel;
+
+        Stylerule nieuweRegel = new Stylerule();
+        nieuweRegel.selectors.addAll(regel.selectors);
+        for (int i = omgekeerd.size() - 1; i >= 0; i--) {
+            nieuweRegel.body.add(omgekeerd.get(i));
+        }
+        return nieuweRegel;
+    }
+
+    private static String propertyVan(Declaration declaratie) {
+        return declaratie.property == null ? "" : declaratie.property.name.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> propertiesVan(Stylerule regel) {
+        List<String> properties = new ArrayList<>();
+        for (ASTNode knoop : regel.body) {
+            if (knoop instanceof Declaration) properties.add(propertyVan((Declaration) knoop));
+        }
+        return properties;
+    }
+
+    // Volgorde doet er na het ontdubbelen niet meer toe: elke property staat er nog maar een keer in.
+    // Het label van een literal bevat soort en waarde. Null als er nog iets anders dan een literal staat.
+    private static String sleutelVan(Stylerule regel) {
+        TreeSet<String> declaraties = new TreeSet<>();
+        for (ASTNode knoop : regel.body) {
+            if (knoop instanceof Declaration) {
+                Declaration declaratie = (Declaration) knoop;
+                if (!(declaratie.expression instanceof Literal)) return null;
+                declaraties.add(propertyVan(declaratie) + '\0' + declaratie.expression.getNodeLabel());
+            }
+        }
+        return String.join("\n", declaraties);
+    }
+
+    private static boolean tussenliggendeRegelZet(List<String> properties, Map<String, Integer> laatsteRegelMet, int eerder) {
+        for (String property : properties) {
+            if (laatsteRegelMet.getOrDefault(property, -1) > eerder) return true;
+        }
+        return false;
+    }
+
+    private static Stylerule voegSelectorsToe(Stylerule doel, Stylerule bron) {
+        Stylerule samen = new Stylerule();
+        samen.selectors.addAll(doel.selectors);
+        for (Selector selector : bron.selectors) {
+            if (!samen.selectors.contains(selector)) samen.selectors.add(selector);
+        }
+        samen.body = doel.body;
+        return samen;
+    }
+
+    private static boolean zelfdeKnopen(List<ASTNode> origineel, List<ASTNode> nieuw) {
+        if (origineel.size() != nieuw.size()) return false;
+        for (int i = 0; i < origineel.size(); i++) {
+            if (origineel.get(i) != nieuw.get(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// De array-versies moeten zich precies zo gedragen als de gelinkte.
+class HANArrayStructuresTest {
+
+	@Test
+	void testStackMatchesLinked() {
+		Random random = new Random(1);
+		IHANStack<Integer> linked = HANDataStructures.newStack(HANDataStructures.Implementation.LINKED);
+		IHANStack<Integer> array = HANDataStructures.newStack(HANDataStructures.Implementation.ARRAY);
+		HANIntStack ints = new HANIntStack(1);
+		int grootte = 0;
+		for (int stap = 0; stap < 10_000; stap++) {
+			if (grootte > 0 && random.nextInt(5) < 2) {
+				int verwacht = linked.pop();
+				assertEquals(verwacht, array.pop());
+				assertEquals(verwacht, ints.pop());
+				grootte--;
+			} else {
+				linked.push(stap);
+				array.push(stap);
+				ints.push(stap);
+				grootte++;
+			}
+			if (grootte > 0) {
+				assertEquals(linked.peek(), array.peek());
+				assertEquals((int) linked.peek(), ints.peek());
+			}
+		}
+		while (grootte-- > 0) {
+			array.pop();
+			ints.pop();
+		}
+		assertThrows(NoSuchElementException.class, array::pop);
+		assertThrows(NoSuchElementException.class, ints::pop);
+	}
+
+	@Test
+	void testQueueMatchesLinked() {
+		Random random = new Random(2);
+		IHANQueue<Integer> linked = HANDataStructures.newQueue(HANDataStructures.Implementation.LINKED);
+		IHANQueue<Integer> array = new HANArrayQueue<>(1);
+		for (int stap = 0; stap < 10_000; stap++) {
+			int actie = random.nextInt(10);
+			if (actie < 4 && !linked.isEmpty()) {
+				assertEquals(linked.dequeue(), array.dequeue());
+			} else if (actie == 9) {
+				linked.clear();
+				array.clear();
+			} else {
+				linked.enqueue(stap);
+				array.enqueue(stap);
+			}
+			assertEquals(linked.getSize(), array.getSize());
+			assertEquals(linked.isEmpty(), array.isEmpty());
+			if (!linked.isEmpty()) assertEquals(linked.peek(), array.peek());
+		}
+	}
+
+	@Test
+	void testListMatchesLinked() {
+		Random random = new Random(3);
+		IHANLinkedList<Integer> linked = HANDataStructures.newLinkedList(HANDataStructures.Implementation.LINKED);
+		IHANLinkedList<Integer> array = new HANArrayList<>(1);
+		for (int stap = 0; stap < 10_000; stap++) {
+			int grootte = linked.getSize();
+			int actie = random.nextInt(12);
+			if (actie < 3) {
+				linked.addFirst(stap);
+				array.addFirst(stap);
+			} else if (actie < 6) {
+				int index = random.nextInt(grootte + 1);
+				linked.insert(index, stap);
+				array.insert(index, stap);
+			} else if (actie < 8 && grootte > 0) {
+				int index = random.nextInt(grootte);
+				linked.delete(index);
+				array.delete(index);
+			} else if (actie < 10 && grootte > 0) {
+				linked.removeFirst();
+				array.removeFirst();
+			} else if (actie == 10 && random.nextInt(20) == 0) {
+				linked.clear();
+				array.clear();
+			}
+			assertEquals(linked.getSize(), array.getSize());
+			for (int i = 0; i < linked.getSize(); i++) {
+				assertEquals(linked.get(i), array.get(i), "stap " + stap + ", index " + i);
+			}
+			if (linked.getSize() > 0) assertEquals(linked.getFirst(), array.getFirst());
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> array.get(array.getSize()));
+	}
+}
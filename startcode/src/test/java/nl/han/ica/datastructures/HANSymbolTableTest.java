@@ -0,0 +1,64 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANSymbolTableTest {
+
+	@Test
+	void testShadowingAndPop() {
+		IHANSymbolTable<String> table = new HANSymbolTable<>();
+		table.pushScope();
+		table.define("A", "global");
+		table.pushScope();
+		assertEquals("global", table.lookup("A"));
+		table.define("A", "inner");
+		table.define("A", "inner again");
+		table.define("B", "only inner");
+		assertEquals("inner again", table.lookup("A"));
+		table.popScope();
+		assertEquals("global", table.lookup("A"));
+		assertNull(table.lookup("B"));
+		assertNull(table.lookup("Unknown"));
+		table.popScope();
+		assertEquals(0, table.getDepth());
+		assertNull(table.lookup("A"));
+		assertThrows(NoSuchElementException.class, table::popScope);
+	}
+
+	// Zelfde gedrag als de oude aanpak: een stapel HashMaps die van binnen naar buiten doorzocht wordt.
+	@Test
+	void testMatchesStackOfMaps() {
+		Random random = new Random(3);
+		IHANSymbolTable<Integer> table = new HANSymbolTable<>();
+		IHANLinkedList<HashMap<String, Integer>> scopes = new HANLinkedList<>();
+		table.pushScope();
+		scopes.addFirst(new HashMap<>());
+		for (int stap = 0; stap < 20_000; stap++) {
+			int actie = random.nextInt(10);
+			String naam = "V" + random.nextInt(40);
+			if (actie == 0) {
+				table.pushScope();
+				scopes.addFirst(new HashMap<>());
+			} else if (actie == 1 && scopes.getSize() > 1) {
+				table.popScope();
+				scopes.removeFirst();
+			} else if (actie < 6) {
+				table.define(naam, stap);
+				scopes.getFirst().put(naam, stap);
+			} else {
+				Integer verwacht = null;
+				for (int i = 0; i < scopes.getSize() && verwacht == null; i++) {
+					verwacht = scopes.get(i).get(naam);
+				}
+				assertEquals(verwacht, table.lookup(naam), "stap " + stap);
+			}
+			assertEquals(scopes.getSize(), table.getDepth());
+		}
+	}
+}
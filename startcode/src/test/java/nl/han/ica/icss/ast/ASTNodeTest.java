@@ -0,0 +1,38 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	private void assertSameChildren(ASTNode node) {
+		ArrayList<ASTNode> children = node.getChildren();
+		assertEquals(children.size(), node.childCount(), node.getNodeLabel());
+		for (int i = 0; i < children.size(); i++) {
+			assertSame(children.get(i), node.childAt(i), node.getNodeLabel() + " child " + i);
+			if (children.get(i) != null) {
+				assertSameChildren(children.get(i));
+			}
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.childAt(children.size()));
+	}
+
+	@Test
+	void testChildAtMatchesGetChildren() {
+		String source = new StylesheetGenerator().seed(5).rules(200).ifDepth(4).generate().getSource();
+		assertSameChildren(new ICSSCompiler().parse(source).getAST().root);
+	}
+
+	@Test
+	void testIfClauseCountsMissingCondition() {
+		IfClause ifClause = new IfClause();
+		ifClause.body.add(new Declaration("width"));
+		assertSameChildren(ifClause);
+		assertNull(ifClause.childAt(0));
+	}
+}
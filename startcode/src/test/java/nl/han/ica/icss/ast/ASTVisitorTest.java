@@ -0,0 +1,108 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTVisitorTest {
+
+	// Elke concrete knoop met de naam van zijn eigen visit-methode.
+	private static Map<ASTNode, String> alleKnopen() {
+		Map<ASTNode, String> knopen = new LinkedHashMap<>();
+		knopen.put(new Stylesheet(), "Stylesheet");
+		knopen.put(new Stylerule(), "Stylerule");
+		knopen.put(new Declaration("width"), "Declaration");
+		knopen.put(new PropertyName("width"), "PropertyName");
+		knopen.put(new VariableAssignment(), "VariableAssignment");
+		knopen.put(new IfClause(), "IfClause");
+		knopen.put(new ElseClause(), "ElseClause");
+		knopen.put(new IdSelector("#menu"), "IdSelector");
+		knopen.put(new ClassSelector(".menu"), "ClassSelector");
+		knopen.put(new TagSelector("p"), "TagSelector");
+		knopen.put(new VariableReference("Width"), "VariableReference");
+		knopen.put(new BoolLiteral(true), "BoolLiteral");
+		knopen.put(new ColorLiteral("#ffffff"), "ColorLiteral");
+		knopen.put(new PercentageLiteral(50), "PercentageLiteral");
+		knopen.put(new PixelLiteral(10), "PixelLiteral");
+		knopen.put(new ScalarLiteral(2), "ScalarLiteral");
+		knopen.put(new AddOperation(), "AddOperation");
+		knopen.put(new SubtractOperation(), "SubtractOperation");
+		knopen.put(new MultiplyOperation(), "MultiplyOperation");
+		return knopen;
+	}
+
+	@Test
+	void testEveryNodeReachesItsOwnVisitMethod() {
+		ASTVisitor<String> specifiek = new ASTVisitor<>() {
+			public String visitNode(ASTNode node) { return "Node"; }
+			public String visitStylesheet(Stylesheet node) { return "Stylesheet"; }
+			public String visitStylerule(Stylerule node) { return "Stylerule"; }
+			public String visitDeclaration(Declaration node) { return "Declaration"; }
+			public String visitPropertyName(PropertyName node) { return "PropertyName"; }
+			public String visitVariableAssignment(VariableAssignment node) { return "VariableAssignment"; }
+			public String visitIfClause(IfClause node) { return "IfClause"; }
+			public String visitElseClause(ElseClause node) { return "ElseClause"; }
+			public String visitIdSelector(IdSelector node) { return "IdSelector"; }
+			public String visitClassSelector(ClassSelector node) { return "ClassSelector"; }
+			public String visitTagSelector(TagSelector node) { return "TagSelector"; }
+			public String visitVariableReference(VariableReference node) { return "VariableReference"; }
+			public String visitBoolLiteral(BoolLiteral node) { return "BoolLiteral"; }
+			public String visitColorLiteral(ColorLiteral node) { return "ColorLiteral"; }
+			public String visitPercentageLiteral(PercentageLiteral node) { return "PercentageLiteral"; }
+			public String visitPixelLiteral(PixelLiteral node) { return "PixelLiteral"; }
+			public String visitScalarLiteral(ScalarLiteral node) { return "ScalarLiteral"; }
+			public String visitAddOperation(AddOperation node) { return "AddOperation"; }
+			public String visitSubtractOperation(SubtractOperation node) { return "SubtractOperation"; }
+			public String visitMultiplyOperation(MultiplyOperation node) { return "MultiplyOperation"; }
+		};
+		alleKnopen().forEach((knoop, verwacht) -> assertEquals(verwacht, knoop.accept(specifiek)));
+	}
+
+	@Test
+	void testDefaultsFallBackToTheMoreGeneralKind() {
+		ASTVisitor<String> algemeen = new ASTVisitor<>() {
+			public String visitNode(ASTNode node) { return "Node"; }
+			public String visitSelector(Selector node) { return "Selector"; }
+			public String visitExpression(Expression node) { return "Expression"; }
+			public String visitLiteral(Literal node) { return "Literal"; }
+			public String visitOperation(Operation node) { return "Operation"; }
+		};
+		assertEquals("Node", new Stylesheet().accept(algemeen));
+		assertEquals("Node", new Declaration("width").accept(algemeen));
+		assertEquals("Selector", new TagSelector("p").accept(algemeen));
+		assertEquals("Expression", new VariableReference("Width").accept(algemeen));
+		assertEquals("Literal", new PixelLiteral(10).accept(algemeen));
+		assertEquals("Operation", new MultiplyOperation().accept(algemeen));
+
+		// Zonder visitLiteral gaat een literal door naar visitExpression, en zonder die naar visitNode.
+		ASTVisitor<String> alleenExpressie = new ASTVisitor<>() {
+			public String visitNode(ASTNode node) { return "Node"; }
+			public String visitExpression(Expression node) { return "Expression"; }
+		};
+		assertEquals("Expression", new PixelLiteral(10).accept(alleenExpressie));
+		assertEquals("Expression", new AddOperation().accept(alleenExpressie));
+		assertEquals("Node", new IdSelector("#menu").accept(alleenExpressie));
+
+		ASTVisitor<String> alleenKnoop = new ASTVisitor<>() {
+			public String visitNode(ASTNode node) { return "Node"; }
+		};
+		alleKnopen().forEach((knoop, naam) -> assertEquals("Node", knoop.accept(alleenKnoop), naam));
+
+		// Niets overschreven: null.
+		assertNull(new PixelLiteral(10).accept(new ASTVisitor<String>() { }));
+	}
+}
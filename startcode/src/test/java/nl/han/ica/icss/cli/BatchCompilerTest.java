@@ -0,0 +1,121 @@
+package nl.han.ica.icss.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCompilerTest {
+
+	private static final String GOED = "p { width: 10px; }";
+
+	private static Path schrijf(Path bestand, String inhoud) throws IOException {
+		Files.createDirectories(bestand.getParent());
+		return Files.write(bestand, inhoud.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static BatchCompiler met(String... args) {
+		BatchCompiler compiler = new BatchCompiler();
+		compiler.leesArgumenten(args);
+		return compiler;
+	}
+
+	private static List<Path> paden(List<BatchCompiler.Bron> bronnen) {
+		List<Path> paden = new ArrayList<>();
+		for (BatchCompiler.Bron bron : bronnen) {
+			paden.add(bron.pad.toAbsolutePath().normalize());
+		}
+		return paden;
+	}
+
+	@Test
+	void testFindsDirectoriesFilesAndGlobsOnce(@TempDir Path map) throws IOException {
+		Path a = schrijf(map.resolve("a.icss"), GOED);
+		Path b = schrijf(map.resolve("sub/b.icss"), GOED);
+		schrijf(map.resolve("sub/notes.txt"), "geen icss");
+		Path x = schrijf(map.resolve("themes/x.icss"), GOED);
+		Path y = schrijf(map.resolve("themes/dark/y.icss"), GOED);
+
+		assertEquals(List.of(b), paden(met(map.resolve("sub").toString()).zoekBronnen()));
+		assertEquals(List.of(a), paden(met(a.toString()).zoekBronnen()));
+		// **/ mag ook nul mappen zijn: x staat direct onder themes.
+		assertEquals(List.of(y, x), paden(met(map.resolve("themes") + "/**/*.icss").zoekBronnen()));
+
+		// Dubbel opgegeven (los en via de map) telt een keer.
+		List<Path> gevonden = paden(met(a.toString(), map.toString(), b.toString()).zoekBronnen());
+		assertEquals(List.of(a, b, y, x), gevonden);
+
+		assertThrows(IllegalArgumentException.class, () -> met(map.resolve("bestaat-niet.icss").toString()).zoekBronnen());
+	}
+
+	@Test
+	void testOutputMirrorsTheInputTree(@TempDir Path map) throws IOException {
+		schrijf(map.resolve("src/sub/b.icss"), GOED);
+		Path uit = map.resolve("out");
+
+		BatchCompiler gespiegeld = met("-o", uit.toString(), map.resolve("src").toString());
+		BatchCompiler.Bron bron = gespiegeld.zoekBronnen().get(0);
+		assertEquals(uit.resolve("sub/b.css"), gespiegeld.uitvoerPadVoor(bron));
+
+		BatchCompiler ernaast = met(map.resolve("src").toString());
+		assertEquals(map.resolve("src/sub/b.css"), ernaast.uitvoerPadVoor(ernaast.zoekBronnen().get(0)));
+	}
+
+	@Test
+	void testReportEscapesJson(@TempDir Path map) throws IOException {
+		assertEquals("\"a\\\"b\\\\c\\nd\\te\\u0001\"", BatchCompiler.json("a\"b\\c\nd\te\u0001"));
+
+		BatchCompiler.Bron bron = new BatchCompiler.Bron(map.resolve("in.icss"), map);
+		List<BatchCompiler.Resultaat> resultaten = List.of(
+				new BatchCompiler.Resultaat(bron, null, List.of("token recognition error at: '\"\\n'")));
+		Path rapport = map.resolve("rapport/report.json");
+		BatchCompiler.schrijfRapport(resultaten, rapport);
+
+		String json = new String(Files.readAllBytes(rapport), StandardCharsets.UTF_8);
+		assertTrue(json.contains("\"failed\": 1"), json);
+		assertTrue(json.contains("\"output\": null"), json);
+		assertTrue(json.contains("\"errors\": [\"token recognition error at: '\\\"\\\\n'\"]"), json);
+	}
+
+	@Test
+	void testExitCodeIsOneWhenAFileHasErrors(@TempDir Path map) throws IOException {
+		schrijf(map.resolve("in/a.icss"), GOED);
+		schrijf(map.resolve("in/b.icss"), "a { color: 10px; }");
+		assertEquals(0, met("-o", map.resolve("uit").toString(), map.resolve("in/a.icss").toString()).run());
+		assertEquals("p {\n  width: 10px;\n}\n", new String(Files.readAllBytes(map.resolve("uit/a.css")), StandardCharsets.UTF_8));
+
+		// Stond er nog een .css van een eerdere versie van b, dan moet die weg.
+		schrijf(map.resolve("uit/b.css"), "a { color: #ff0000; }");
+		assertEquals(1, met("-o", map.resolve("uit").toString(), map.resolve("in").toString()).run());
+		assertFalse(Files.exists(map.resolve("uit/b.css")));
+	}
+
+	@Test
+	void testOneBadFileDoesNotStopTheOthers(@TempDir Path map) throws IOException {
+		schrijf(map.resolve("in/a.icss"), GOED);
+		// Syntactisch goed, maar het getal past niet in een int: de compiler gooit een exception.
+		schrijf(map.resolve("in/b.icss"), "p { width: 99999999999px; }");
+		schrijf(map.resolve("in/c.icss"), GOED);
+		// Een .css van een eerdere, geslaagde run mag niet blijven staan.
+		Path oud = schrijf(map.resolve("uit/b.css"), "p { width: 1px; }");
+		Path rapport = map.resolve("report.json");
+
+		BatchCompiler compiler = met("-o", map.resolve("uit").toString(), "--report", rapport.toString(), map.resolve("in").toString());
+		assertEquals(1, compiler.run());
+
+		assertTrue(Files.exists(map.resolve("uit/a.css")));
+		assertTrue(Files.exists(map.resolve("uit/c.css")));
+		assertFalse(Files.exists(oud));
+		String json = new String(Files.readAllBytes(rapport), StandardCharsets.UTF_8);
+		assertTrue(json.contains("\"files\": 3"), json);
+		assertTrue(json.contains("\"failed\": 1"), json);
+		assertTrue(json.contains("NumberFormatException"), json);
+	}
+}
@@ -0,0 +1,76 @@
+package nl.han.ica.icss.compiler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilationCacheTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	@Test
+	void testSecondCompileIsAHit() {
+		CompilationCache cache = new CompilationCache(compiler);
+		CssResult first = cache.compile("p { width: 10px; }");
+		CssResult second = cache.compile("p { width: 10px; }");
+
+		assertSame(first, second);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void testOptionsArePartOfTheKey() {
+		String source = "p { width: 1px; width: 2px; }";
+		assertNotEquals(CompilationCache.keyOf(CompilerOptions.DEFAULT, source),
+				CompilationCache.keyOf(CompilerOptions.DEFAULT.withOptimize(true), source));
+		assertNotEquals(CompilationCache.keyOf(CompilerOptions.DEFAULT, source),
+				CompilationCache.keyOf(CompilerOptions.DEFAULT.withMinify(true), source));
+	}
+
+	@Test
+	void testLeastRecentlyUsedEntryIsEvicted() {
+		CompilationCache cache = new CompilationCache(compiler, 2, Long.MAX_VALUE, null, 0);
+		cache.compile("a { width: 1px; }");
+		cache.compile("b { width: 2px; }");
+		cache.compile("a { width: 1px; }");
+		cache.compile("c { width: 3px; }");
+
+		assertEquals(2, cache.size());
+		cache.compile("a { width: 1px; }");
+		assertEquals(2, cache.getHits());
+		cache.compile("b { width: 2px; }");
+		assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	void testDiskTierSurvivesANewCache(@TempDir Path directory) {
+		String invalid = "p { width: #ffffff; }";
+		CssResult compiled = new CompilationCache(compiler, directory).compile(invalid);
+
+		CompilationCache warm = new CompilationCache(compiler, directory);
+		CssResult cached = warm.compile(invalid);
+
+		assertEquals(1, warm.getDiskHits());
+		assertEquals(0, warm.getMisses());
+		assertEquals(compiled.getCss(), cached.getCss());
+		assertEquals(compiled.getErrors(), cached.getErrors());
+	}
+
+	@Test
+	void testDiskTierKeepsBackslashesInErrors(@TempDir Path directory) {
+		// De lexer schrijft de newline in deze melding al als backslash-n.
+		String invalid = "p { color: #\n; }";
+		CssResult compiled = new CompilationCache(compiler, directory).compile(invalid);
+		assertTrue(compiled.getErrors().stream().anyMatch(fout -> fout.contains("'#\\n'")), compiled.getErrors().toString());
+
+		CompilationCache warm = new CompilationCache(compiler, directory);
+		CssResult cached = warm.compile(invalid);
+
+		assertEquals(1, warm.getDiskHits());
+		assertEquals(compiled.getErrors(), cached.getErrors());
+	}
+}
@@ -0,0 +1,280 @@
+package nl.han.ica.icss.compiler;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ICSSCompilerTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	String readResource(String resource) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testCompileLevel3() throws IOException {
+		CssResult result = compiler.compile(readResource("level3.icss"));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p {\n" +
+				"  background-color: #ffffff;\n" +
+				"  width: 500px;\n" +
+				"  color: #124532;\n" +
+				"  background-color: #000000;\n" +
+				"  height: 20px;\n" +
+				"}\n" +
+				"a {\n" +
+				"  color: #ff0000;\n" +
+				"}\n" +
+				"#menu {\n" +
+				"  width: 520px;\n" +
+				"}\n" +
+				".menu {\n" +
+				"  color: #000000;\n" +
+				"  background-color: #ff0000;\n" +
+				"}\n", result.getCss());
+	}
+
+	@Test
+	void testStagesDoNotModifyTheirInput() throws IOException {
+		ParseResult parsed = compiler.parse(readResource("level3.icss"));
+		String beforeCheck = parsed.getAST().toString();
+
+		CheckResult checked = compiler.check(parsed);
+		TransformResult transformed = compiler.transform(checked);
+
+		assertEquals(beforeCheck, parsed.getAST().toString());
+		assertEquals(beforeCheck, checked.getAST().toString());
+		assertNotEquals(beforeCheck, transformed.getAST().toString());
+		assertEquals(compiler.compile(readResource("level3.icss")).getCss(), compiler.generate(transformed).getCss());
+	}
+
+	@Test
+	void testTransformSharesUnchangedNodes() {
+		CheckResult checked = compiler.check(compiler.parse("W := 2px; p { width: 10px; } a { width: W; } b { width: W + 1px; }"));
+		TransformResult transformed = compiler.transform(checked);
+		ArrayList<ASTNode> before = checked.getAST().root.body;
+		ArrayList<ASTNode> after = transformed.getAST().root.body;
+
+		assertSame(before.get(0), after.get(0));
+		assertSame(before.get(1), after.get(1));
+		assertNotSame(before.get(3), after.get(3));
+		Stylerule changed = (Stylerule) after.get(3);
+		assertSame(((Stylerule) before.get(3)).selectors.get(0), changed.selectors.get(0));
+		assertEquals(new PixelLiteral(3), ((Declaration) changed.body.get(0)).expression);
+	}
+
+	@Test
+	void testErrorsArePassedOnToLaterStages() {
+		CssResult result = compiler.generate(compiler.transform(compiler.check(compiler.parse("p { width: #ffffff; }"))));
+		assertFalse(result.isSuccess());
+		assertEquals("", result.getCss());
+		assertEquals(1, result.getErrors().size());
+	}
+
+	@Test
+	void testSllParseFallsBackToLlOnlyOnErrors() {
+		ICSSCompiler tellend = new ICSSCompiler();
+		for (int seed = 0; seed < 10; seed++) {
+			String source = new StylesheetGenerator().seed(seed).rules(200).ifDepth(3).generate().getSource();
+			ParseResult result = tellend.parse(source);
+			assertTrue(result.isSuccess(), result.getErrors().toString());
+
+			// Zelfde AST als een gewone parse met volledig LL.
+			ASTListener listener = new ASTListener();
+			new ParseTreeWalker().walk(listener, new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(source)))).stylesheet());
+			assertEquals(listener.getAST(), result.getAST(), "seed " + seed);
+		}
+		assertEquals(10, tellend.getParseCount());
+		assertEquals(0, tellend.getFallbackParseCount());
+
+		ParseResult fout = tellend.parse("p { width: 1px; } a { width 2px; }");
+		assertFalse(fout.isSuccess());
+		assertTrue(fout.getErrors().get(0).startsWith("Syntax error: "), fout.getErrors().toString());
+		assertEquals(1, tellend.getFallbackParseCount());
+	}
+
+	// Kapotte varianten van de level-bestanden: elk token een keer weggelaten, verdubbeld en vervangen door ~.
+	private List<String> kapotteVarianten() throws IOException {
+		List<String> varianten = new ArrayList<>();
+		for (String level : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			String bron = readResource(level);
+			CommonTokenStream tokens = new CommonTokenStream(new ICSSLexer(CharStreams.fromString(bron)));
+			tokens.fill();
+			for (Token token : tokens.getTokens()) {
+				if (token.getType() == Token.EOF) break;
+				String voor = bron.substring(0, token.getStartIndex());
+				String na = bron.substring(token.getStopIndex() + 1);
+				varianten.add(voor + na);
+				varianten.add(voor + token.getText() + " " + token.getText() + na);
+				varianten.add(voor + "~" + na);
+			}
+		}
+		varianten.add(PAST_NIET);
+		return varianten;
+	}
+
+	// De oude route: eerst een parse tree met volledig LL, dan de listener eroverheen. Null als de
+	// listener niet past op de (door ANTLR herstelde) boom.
+	private static AST parseEnWandel(String bron, List<String> fouten) {
+		BaseErrorListener verzamelaar = new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+									int charPositionInLine, String msg, RecognitionException e) {
+				fouten.add("Syntax error: " + msg);
+			}
+		};
+		ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(bron));
+		lexer.removeErrorListeners();
+		lexer.addErrorListener(verzamelaar);
+		CommonTokenStream tokens = new CommonTokenStream(lexer);
+		tokens.fill();
+		ICSSParser parser = new ICSSParser(tokens);
+		parser.removeErrorListeners();
+		parser.addErrorListener(verzamelaar);
+		ParseTree boom = parser.stylesheet();
+		try {
+			ASTListener listener = new ASTListener();
+			new ParseTreeWalker().walk(listener, boom);
+			return listener.getAST();
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	@Test
+	void testBrokenInputsMatchTreeWalk() throws IOException {
+		ICSSCompiler tellend = new ICSSCompiler();
+		int pastNiet = 0;
+		for (String variant : kapotteVarianten()) {
+			List<String> verwachteFouten = new ArrayList<>();
+			AST verwacht = parseEnWandel(variant, verwachteFouten);
+			ParseResult result = tellend.parse(variant);
+
+			assertEquals(verwachteFouten, result.getErrors(), variant);
+			if (verwacht == null) {
+				// Past de herstelde boom niet in de listener: alleen de fouten, met een lege AST.
+				pastNiet++;
+				assertFalse(result.isSuccess(), variant);
+				assertEquals(new AST(), result.getAST(), variant);
+			} else {
+				assertEquals(verwacht, result.getAST(), variant);
+			}
+		}
+		assertTrue(tellend.getFallbackParseCount() > 0);
+		assertTrue(pastNiet > 0, "geen variant waar de listener niet past");
+	}
+
+	// Na het herstel van de ontbrekende ':' loopt de listener vast op een getal dat niet in een int past.
+	private static final String PAST_NIET = "p { width 99999999999px; }";
+
+	@Test
+	void testRecoveredParseThatDoesNotFitTheListener() {
+		ParseResult result = compiler.parse(PAST_NIET);
+		assertEquals(List.of("Syntax error: missing ':' at '99999999999px'"), result.getErrors());
+		assertEquals(new AST(), result.getAST());
+	}
+
+	@Test
+	void testParseFileAndChannelMatchParseString(@TempDir Path map) throws IOException {
+		String groot = new StylesheetGenerator().seed(3).rules(2000).generate().getSource();
+		assertTrue(groot.length() > ICSSCompiler.MAP_THRESHOLD);
+		String[] bronnen = {readResource("level3.icss"), groot, "p { width: 1px; }\n/* é */ a { }", "p { width: 1px; } \uD83D\uDE00"};
+		for (String bron : bronnen) {
+			Path bestand = Files.write(map.resolve("in.icss"), bron.getBytes(StandardCharsets.UTF_8));
+			ParseResult verwacht = compiler.parse(bron);
+			ParseResult uitBestand = compiler.parse(bestand);
+			assertEquals(verwacht.getErrors(), uitBestand.getErrors());
+			assertEquals(verwacht.getAST(), uitBestand.getAST());
+
+			ParseResult uitKanaal = compiler.parse(Channels.newChannel(new ByteArrayInputStream(bron.getBytes(StandardCharsets.UTF_8))));
+			assertEquals(verwacht.getErrors(), uitKanaal.getErrors());
+			assertEquals(verwacht.getAST(), uitKanaal.getAST());
+		}
+	}
+
+	@Test
+	void testStagesEmitFlightRecorderEvents(@TempDir Path map) throws IOException {
+		String source = readResource("level2.icss");
+		Path opname = map.resolve("icss.jfr");
+		try (Recording recording = new Recording()) {
+			for (String stap : new String[]{"Lex", "Parse", "Check", "Transform", "Generate"}) {
+				recording.enable("nl.han.ica.icss." + stap).withThreshold(Duration.ZERO);
+			}
+			recording.start();
+			compiler.generate(compiler.transform(compiler.check(compiler.parse(source))));
+			recording.stop();
+			recording.dump(opname);
+		}
+
+		List<String> stappen = new ArrayList<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(opname)) {
+			String naam = event.getEventType().getName();
+			stappen.add(naam.substring(naam.lastIndexOf('.') + 1));
+			assertTrue(event.getString("source").startsWith("text@"));
+			assertEquals(0, event.getInt("errors"));
+			assertEquals(source.length(), event.getLong("sourceSize"), naam);
+			if (naam.endsWith("Lex")) {
+				assertTrue(event.getInt("tokens") > 0);
+			} else {
+				assertTrue(event.getInt("nodes") > 0);
+			}
+		}
+		assertTrue(stappen.containsAll(List.of("Lex", "Parse", "Check", "Transform", "Generate")), stappen.toString());
+	}
+
+	@Test
+	void testConcurrentCompilationsGiveTheSameResult() throws Exception {
+		String source = readResource("level3.icss");
+		String expected = compiler.compile(source).getCss();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<CssResult>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				futures.add(pool.submit(() -> compiler.compile(source)));
+			}
+			for (Future<CssResult> future : futures) {
+				assertEquals(expected, future.get().getCss());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
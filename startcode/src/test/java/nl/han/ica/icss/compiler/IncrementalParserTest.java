@@ -0,0 +1,76 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.ASTNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	String readResource(String resource) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testUnchangedStatementsKeepTheirIdentity() throws IOException {
+		String source = readResource("level3.icss");
+		IncrementalParser parser = new IncrementalParser(compiler);
+		List<ASTNode> before = parser.parse(source).getAST().root.body;
+
+		String edited = source.replace("width: ParWidth + 20px;", "width: ParWidth + 30px;");
+		ParseResult result = parser.parse(edited);
+		List<ASTNode> after = result.getAST().root.body;
+
+		assertEquals(compiler.parse(edited).getAST(), result.getAST());
+		assertEquals(1, parser.getIncrementalParseCount());
+		assertEquals(before.size(), after.size());
+		for (int i = 0; i < before.size(); i++) {
+			if (i == 6) {
+				assertNotSame(before.get(i), after.get(i));
+			} else {
+				assertSame(before.get(i), after.get(i));
+			}
+		}
+	}
+
+	@Test
+	void testRandomEditsGiveTheSameTreeAsAFullParse() throws IOException {
+		String source = readResource("level3.icss");
+		String alphabet = "abpxX{}[];: =+-*#0129\n";
+		Random random = new Random(42);
+		IncrementalParser parser = new IncrementalParser(compiler);
+		parser.parse(source);
+
+		for (int edit = 0; edit < 2000; edit++) {
+			int position = random.nextInt(source.length() + 1);
+			int removed = Math.min(random.nextInt(3), source.length() - position);
+			StringBuilder inserted = new StringBuilder();
+			for (int i = random.nextInt(3); i > 0; i--) {
+				inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String edited = source.substring(0, position) + inserted + source.substring(position + removed);
+
+			ParseResult incremental = parser.parse(edited);
+			ParseResult full = compiler.parse(edited);
+			assertEquals(full.isSuccess(), incremental.isSuccess(), edited);
+			if (full.isSuccess()) {
+				assertEquals(full.getAST(), incremental.getAST(), edited);
+				assertEquals(full.getAST().toString(), incremental.getAST().toString(), edited);
+			}
+			// Om de zoveel edits terug naar de geldige bron, zodat er ook weer incrementeel geparset wordt.
+			source = (edit % 4 == 3 || !full.isSuccess()) ? readResource("level3.icss") : edited;
+			if (!full.isSuccess()) parser.parse(source);
+		}
+		assertTrue(parser.getIncrementalParseCount() > 0);
+	}
+}
@@ -0,0 +1,96 @@
+package nl.han.ica.icss.compiler;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import nl.han.ica.icss.synthetic.SyntheticStylesheet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylesheetTemplateTest {
+
+	private static final String SOURCE = "Width := 10px;\n" +
+			"UseRed := FALSE;\n" +
+			"p {\n" +
+			"  width: Width * 2;\n" +
+			"  if [UseRed] { color: #ff0000; } else { color: #000000; }\n" +
+			"}\n" +
+			"a { Width := 1px; height: Width; }\n";
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	private static String expected(int width, boolean useRed) {
+		return "p {\n  width: " + (width * 2) + "px;\n  color: " + (useRed ? "#ff0000" : "#000000") + ";\n}\n" +
+				"a {\n  height: 1px;\n}\n";
+	}
+
+	@Test
+	void testWithoutOverridesMatchesCompile() {
+		SyntheticStylesheet sheet = new StylesheetGenerator().seed(5).rules(300).generate();
+		StylesheetTemplate template = compiler.template(compiler.check(compiler.parse(sheet.getSource())));
+		assertEquals(sheet.getExpectedCss(), template.render(Collections.emptyMap()).getCss());
+		assertEquals(sheet.getExpectedCss(), template.render(Collections.emptyMap()).getCss());
+	}
+
+	@Test
+	void testOverridesOnlyReplaceTopLevelVariables() {
+		ParseResult parsed = compiler.parse(SOURCE);
+		CheckResult checked = compiler.check(parsed);
+		String before = checked.getAST().toString();
+		StylesheetTemplate template = compiler.template(checked);
+
+		Map<String, Literal> overrides = new HashMap<>();
+		overrides.put("Width", new PixelLiteral(7));
+		overrides.put("UseRed", new BoolLiteral(true));
+		assertEquals(expected(7, true), template.render(overrides).getCss());
+		assertEquals(expected(10, false), template.render(Collections.emptyMap()).getCss());
+		assertEquals(before, checked.getAST().toString());
+	}
+
+	@Test
+	void testRejectsUnknownOrMistypedOverrides() {
+		StylesheetTemplate template = compiler.template(compiler.check(compiler.parse(SOURCE)));
+		assertThrows(IllegalArgumentException.class,
+				() -> template.render(Collections.singletonMap("Height", new PixelLiteral(1))));
+		assertThrows(IllegalArgumentException.class,
+				() -> template.render(Collections.singletonMap("Width", new ScalarLiteral(1))));
+
+		StylesheetTemplate broken = compiler.template(compiler.check(compiler.parse("p { width: #ffffff; }")));
+		assertFalse(broken.render(Collections.emptyMap()).isSuccess());
+	}
+
+	@Test
+	void testConcurrentRenders() throws Exception {
+		StylesheetTemplate template = compiler.template(compiler.check(compiler.parse(SOURCE)));
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 500; i++) {
+				int width = i;
+				futures.add(pool.submit(() -> {
+					Map<String, Literal> overrides = new HashMap<>();
+					overrides.put("Width", new PixelLiteral(width));
+					overrides.put("UseRed", new BoolLiteral(width % 2 == 0));
+					return template.render(overrides).getCss();
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals(expected(i, i % 2 == 0), futures.get(i).get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	private AST transformed(String source) {
+		CheckResult checked = compiler.check(compiler.parse(source));
+		assertTrue(checked.isSuccess(), checked.getErrors().toString());
+		return compiler.transform(checked).getAST();
+	}
+
+	@Test
+	void testStreamingMatchesString() throws IOException {
+		AST ast = transformed(new StylesheetGenerator().seed(11).rules(2000).generate().getSource());
+		Generator generator = new Generator();
+		String expected = generator.generate(ast);
+		assertTrue(expected.length() > 4 * Generator.BUFFER_SIZE);
+
+		StringWriter writer = new StringWriter();
+		generator.generate(ast, writer);
+		assertEquals(expected, writer.toString());
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		generator.generate(ast, stream);
+		assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream channelTarget = new ByteArrayOutputStream();
+		generator.generate(ast, Channels.newChannel(channelTarget));
+		assertEquals(expected, channelTarget.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testWritesInBoundedChunks() throws IOException {
+		AST ast = transformed(new StylesheetGenerator().seed(12).rules(2000).generate().getSource());
+		int[] largestWrite = {0};
+		int[] writes = {0};
+		Writer counting = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				writes[0]++;
+				largestWrite[0] = Math.max(largestWrite[0], len);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		new Generator().generate(ast, counting);
+		assertTrue(writes[0] > 1);
+		// Hooguit de buffer plus een enkele regel.
+		assertTrue(largestWrite[0] < 2 * Generator.BUFFER_SIZE, "largest write " + largestWrite[0]);
+	}
+
+	@Test
+	void testCompileToWriterWritesNothingOnErrors() throws IOException {
+		StringWriter writer = new StringWriter();
+		assertFalse(compiler.compile("p { width: Undefined; }", writer).isEmpty());
+		assertEquals("", writer.toString());
+
+		String source = "p { width: 10px + 5px; }";
+		assertTrue(compiler.compile(source, writer).isEmpty());
+		assertEquals(compiler.compile(source).getCss(), writer.toString());
+	}
+
+	@Test
+	void testMinified() {
+		AST ast = transformed("p, .c { color: #ffffff; background-color: #aabbcc; width: 0px; height: 0%; } #a { color: #ff0001; } a { }");
+		assertEquals("p,.c{color:#fff;background-color:#abc;width:0;height:0%}#a{color:#ff0001}a{}",
+				new Generator(true).generate(ast));
+	}
+
+	@Test
+	void testMinifiedStreamingMatchesString() throws IOException {
+		AST ast = transformed(new StylesheetGenerator().seed(13).rules(2000).generate().getSource());
+		Generator generator = new Generator(true);
+		StringWriter writer = new StringWriter();
+		generator.generate(ast, writer);
+		assertEquals(generator.generate(ast), writer.toString());
+		assertTrue(writer.toString().length() < new Generator().generate(ast).length());
+	}
+}
@@ -0,0 +1,117 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastICSSLexerTest {
+
+	// Alle tokens en foutmeldingen, met alles wat de parser en de foutmeldingen ervan gebruiken.
+	private static List<String> lex(TokenSource lexer, List<String> errors) {
+		List<String> tokens = new ArrayList<>();
+		Token token;
+		do {
+			token = lexer.nextToken();
+			tokens.add(token.getType() + " '" + token.getText() + "' " + token.getStartIndex() + "-" + token.getStopIndex()
+					+ " " + token.getLine() + ":" + token.getCharPositionInLine() + " ch" + token.getChannel());
+		} while (token.getType() != Token.EOF);
+		tokens.add("end " + lexer.getLine() + ":" + lexer.getCharPositionInLine());
+		tokens.addAll(errors);
+		return tokens;
+	}
+
+	private static BaseErrorListener collect(List<String> errors) {
+		return new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+									int charPositionInLine, String msg, RecognitionException e) {
+				errors.add(line + ":" + charPositionInLine + " " + msg);
+			}
+		};
+	}
+
+	private static void assertSameTokens(String source) {
+		List<String> antlrErrors = new ArrayList<>();
+		ICSSLexer antlr = new ICSSLexer(CharStreams.fromString(source));
+		antlr.removeErrorListeners();
+		antlr.addErrorListener(collect(antlrErrors));
+
+		List<String> fastErrors = new ArrayList<>();
+		FastICSSLexer fast = new FastICSSLexer(source.toCharArray());
+		fast.addErrorListener(collect(fastErrors));
+
+		List<String> expected = lex(antlr, antlrErrors);
+		assertEquals(expected, lex(fast, fastErrors), source);
+
+		// ASCII rechtstreeks uit bytes, zoals bij een gemapt bestand.
+		ByteBuffer bytes = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+		if (FastICSSLexer.isAscii(bytes)) {
+			List<String> byteErrors = new ArrayList<>();
+			FastICSSLexer fromBytes = new FastICSSLexer(bytes);
+			fromBytes.addErrorListener(collect(byteErrors));
+			assertEquals(expected, lex(fromBytes, byteErrors), source);
+		}
+	}
+
+	@Test
+	void testSameTokensAsAntlrLexer() throws IOException {
+		for (String resource : new String[] {"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+				assertSameTokens(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		for (int seed = 0; seed < 20; seed++) {
+			assertSameTokens(new StylesheetGenerator().seed(seed).rules(200).ifDepth(3).generate().getSource());
+		}
+	}
+
+	@Test
+	void testSameTokensAndErrorsOnTrickyInput() {
+		String[] cases = {"", "   \n", "if iF If IFX iffy else ELSE eLsE elsex Else_ EL eL", "TRUE TRUEX FALSE FALSE_ True",
+				"12px 12p 12pxa 3% 7 0px1", "#abcdef #abcdeff #abcde #ABCDEF #a-b #g12345 # #\n .a .- . .\n",
+				"A:=1;B : =2;:", "a@b\t!\r\n  é.§", "x.", "#"};
+		for (String source : cases) {
+			assertSameTokens(source);
+		}
+
+		Random random = new Random(23);
+		String alphabet = "ifIFelsELSTRUAxpx%#.-:=;[]{}+*,09abcdefgZ_ \n\t\r@é";
+		for (int i = 0; i < 2000; i++) {
+			char[] source = new char[random.nextInt(40)];
+			for (int k = 0; k < source.length; k++) {
+				source[k] = alphabet.charAt(random.nextInt(alphabet.length()));
+			}
+			assertSameTokens(new String(source));
+		}
+	}
+
+	@Test
+	void testScansASliceOfABuffer() {
+		char[] chars = "xxp { width: 1px; }yy".toCharArray();
+		FastICSSLexer lexer = new FastICSSLexer(CharBuffer.wrap(chars, 2, 17));
+		Token first = lexer.nextToken();
+		assertEquals(ICSSLexer.LOWER_IDENT, first.getType());
+		assertEquals(0, first.getStartIndex());
+		Token token;
+		do {
+			token = lexer.nextToken();
+		} while (token.getType() != Token.EOF);
+		assertEquals(17, token.getStartIndex());
+	}
+}
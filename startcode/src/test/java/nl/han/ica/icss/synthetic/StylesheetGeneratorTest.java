@@ -0,0 +1,62 @@
+package nl.han.ica.icss.synthetic;
+
+import nl.han.ica.icss.compiler.CssResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylesheetGeneratorTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	private void assertCompilesToExpected(SyntheticStylesheet stylesheet) {
+		CssResult result = compiler.compile(stylesheet.getSource());
+		assertTrue(result.isSuccess(), "seed " + stylesheet.getSeed() + ": " + result.getErrors());
+		assertEquals(stylesheet.getExpectedCss(), result.getCss(), "seed " + stylesheet.getSeed());
+	}
+
+	@Test
+	void testSameSeedSameProgram() {
+		SyntheticStylesheet a = new StylesheetGenerator().seed(7).rules(50).generate();
+		SyntheticStylesheet b = new StylesheetGenerator().seed(7).rules(50).generate();
+		SyntheticStylesheet c = new StylesheetGenerator().seed(8).rules(50).generate();
+		assertEquals(a.getSource(), b.getSource());
+		assertEquals(a.getExpectedCss(), b.getExpectedCss());
+		assertNotEquals(a.getSource(), c.getSource());
+	}
+
+	@Test
+	void testDefaultSettingsCompileToExpectedCss() {
+		for (long seed = 0; seed < 50; seed++) {
+			assertCompilesToExpected(new StylesheetGenerator().seed(seed).generate());
+		}
+	}
+
+	@Test
+	void testDeepNestingHeavyShadowingAndLargeExpressions() {
+		for (long seed = 0; seed < 20; seed++) {
+			assertCompilesToExpected(new StylesheetGenerator().seed(seed)
+					.rules(40)
+					.ifDepth(6)
+					.variables(5)
+					.shadowing(0.4)
+					.expressionSize(16)
+					.declarationsPerRule(6)
+					.generate());
+		}
+	}
+
+	@Test
+	void testWithoutVariablesOrIfClauses() {
+		assertCompilesToExpected(new StylesheetGenerator().seed(3).variables(0).ifDepth(0).generate());
+	}
+
+	@Test
+	void testRuleCount() {
+		SyntheticStylesheet stylesheet = new StylesheetGenerator().seed(1).rules(1000).generate();
+		assertEquals(1000, stylesheet.getRuleCount());
+		assertEquals(1000, compiler.parse(stylesheet.getSource()).getAST().root.body.stream()
+				.filter(node -> node instanceof nl.han.ica.icss.ast.Stylerule).count());
+	}
+}
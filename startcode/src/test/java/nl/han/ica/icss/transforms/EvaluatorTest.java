@@ -0,0 +1,58 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.ast.types.PrimitiveValues;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	@Test
+	void testArithmeticKeepsIntOverflow() {
+		assertEquals("p {\n  width: -2147483648px;\n  height: 10%;\n}\n",
+				compiler.compile("Big := 2147483647px; p { width: Big + 1px; height: 2 * 3% + 4%; }").getCss());
+		assertEquals(Integer.MIN_VALUE, PrimitiveValues.sum(Integer.MAX_VALUE, 1, true));
+		assertEquals((int) (123456789L * 1000), PrimitiveValues.product(123456789, 1000));
+	}
+
+	@Test
+	void testColorsArePackedAndUnpacked() {
+		assertEquals(0x12ab34, PrimitiveValues.packColor("#12ab34"));
+		assertEquals("#0000ff", PrimitiveValues.unpackColor(0xff));
+		assertEquals("#12ab34", PrimitiveValues.unpackColor(PrimitiveValues.packColor("#12AB34")));
+		assertEquals(0, PrimitiveValues.packColor("#fff"));
+	}
+
+	@Test
+	void testUnitRules() {
+		assertEquals(ExpressionType.PIXEL, PrimitiveValues.sumType(ExpressionType.PIXEL, ExpressionType.PIXEL));
+		assertNull(PrimitiveValues.sumType(ExpressionType.PIXEL, ExpressionType.SCALAR));
+		assertNull(PrimitiveValues.sumType(ExpressionType.COLOR, ExpressionType.COLOR));
+		assertEquals(ExpressionType.PERCENTAGE, PrimitiveValues.productType(ExpressionType.SCALAR, ExpressionType.PERCENTAGE));
+		assertNull(PrimitiveValues.productType(ExpressionType.PIXEL, ExpressionType.PIXEL));
+		assertNull(PrimitiveValues.productType(ExpressionType.BOOL, ExpressionType.SCALAR));
+	}
+
+	@Test
+	void testEvaluatorUsesFoldedConstantsFromTheChecker() {
+		CheckResult checked = compiler.check(compiler.parse("W := 1px; p { width: 2 * 3px + 4px; height: W + 1px; }"));
+		Stylerule rule = (Stylerule) checked.getAST().root.body.get(1);
+		Expression folded = ((Declaration) rule.body.get(0)).expression;
+		Expression variable = ((Declaration) rule.body.get(1)).expression;
+		assertTrue(folded.constant);
+		assertEquals(ExpressionType.PIXEL, folded.inferredType);
+		assertEquals(10, folded.constantValue);
+		assertFalse(variable.constant);
+		assertEquals(ExpressionType.PIXEL, variable.inferredType);
+
+		// The evaluator takes the annotation as is, without walking the operation again.
+		folded.constantValue = 99;
+		assertEquals("p {\n  width: 99px;\n  height: 2px;\n}\n", compiler.generate(compiler.transform(checked)).getCss());
+	}
+}
@@ -0,0 +1,57 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionProgramTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	private Expression widthOf(String source) {
+		CheckResult checked = compiler.check(compiler.parse(source));
+		assertTrue(checked.isSuccess(), checked.getErrors().toString());
+		Stylerule rule = (Stylerule) checked.getAST().root.body.get(checked.getAST().root.body.size() - 1);
+		return ((Declaration) rule.body.get(0)).expression;
+	}
+
+	@Test
+	void testRunsAgainstManyBindings() {
+		Expression width = widthOf("A := 1px; B := 2; p { width: A * B + [2 * 3px] - A; }");
+		ExpressionProgram program = ExpressionProgram.of(width);
+		assertSame(program, ExpressionProgram.of(width));
+		assertEquals("load A\nload B\nmul\nconst PIXEL 6\nadd\nload A\nsub\n", program.toString());
+
+		Map<String, Literal> variables = new HashMap<>();
+		ExpressionProgram.Machine machine = new ExpressionProgram.Machine();
+		for (int a = -50; a <= 50; a++) {
+			for (int b = 0; b < 20; b++) {
+				variables.put("A", new PixelLiteral(a));
+				variables.put("B", new ScalarLiteral(b));
+				assertEquals(ExpressionType.PIXEL, program.run(variables::get, machine));
+				assertEquals(a * b + 6 - a, machine.value);
+			}
+		}
+	}
+
+	@Test
+	void testFollowsTheEvaluatorFallbacks() {
+		Expression width = widthOf("A := 1px; p { width: A + 1px; }");
+		ExpressionProgram.Machine machine = new ExpressionProgram.Machine();
+		Map<String, Literal> variables = new HashMap<>();
+		assertEquals(ExpressionType.SCALAR, ExpressionProgram.of(width).run(variables::get, machine));
+		assertEquals(0, machine.value);
+
+		variables.put("A", new PercentageLiteral(5));
+		assertEquals(ExpressionType.SCALAR, ExpressionProgram.of(width).run(variables::get, machine));
+		assertEquals(0, machine.value);
+	}
+}
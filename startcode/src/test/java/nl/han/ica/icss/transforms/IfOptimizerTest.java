@@ -0,0 +1,75 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.compiler.CheckResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.synthetic.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IfOptimizerTest {
+
+	private final ICSSCompiler compiler = new ICSSCompiler();
+
+	private AST checked(String source) {
+		CheckResult checked = compiler.check(compiler.parse(source));
+		assertTrue(checked.isSuccess(), checked.getErrors().toString());
+		return checked.getAST();
+	}
+
+	private static String css(AST ast) {
+		return new Generator().generate(new Evaluator().evaluate(ast, Collections.emptyMap()));
+	}
+
+	@Test
+	void testResolvesLiteralAndConstantConditions() {
+		AST ast = checked("On := TRUE; Alias := On; Twice := TRUE; Twice := FALSE;\n" +
+				"p { if [On] { if [FALSE] { width: 1px; } else { width: 2px; } } if [Alias] { height: 3px; } }\n" +
+				"a { if [Twice] { width: 4px; } }");
+		IfOptimizer optimizer = new IfOptimizer();
+		AST optimized = optimizer.optimize(ast);
+
+		assertEquals(3, optimizer.getRemovedIfCount());
+		Stylerule p = (Stylerule) optimized.root.body.get(4);
+		assertEquals(2, p.body.size());
+		assertTrue(p.body.get(0) instanceof Declaration);
+		Stylerule a = (Stylerule) optimized.root.body.get(5);
+		assertTrue(a.body.get(0) instanceof IfClause);
+		assertSame(ast.root.body.get(5), a);
+		assertEquals(css(ast), css(optimized));
+	}
+
+	@Test
+	void testLeavesOverridableVariablesAlone() {
+		AST ast = checked("On := TRUE; p { if [On] { width: 1px; } }");
+		AST optimized = new IfOptimizer(Collections.singleton("On")).optimize(ast);
+		assertSame(ast, optimized);
+	}
+
+	@Test
+	void testSameCssOnGeneratedSheets() {
+		for (int seed = 0; seed < 20; seed++) {
+			AST ast = checked(new StylesheetGenerator().seed(seed).rules(100).ifDepth(3).generate().getSource());
+			String before = ast.toString();
+			assertEquals(css(ast), css(new IfOptimizer().optimize(ast)), "seed " + seed);
+			assertEquals(before, ast.toString());
+		}
+	}
+
+	@Test
+	void testManyIfsInOneRule() {
+		StringBuilder source = new StringBuilder("p {\n");
+		for (int i = 0; i < 20_000; i++) {
+			source.append(i % 2 == 0 ? "if [TRUE] { width: " : "if [FALSE] { width: 0px; } else { width: ").append(i).append("px; }\n");
+		}
+		source.append("}\n");
+		AST ast = checked(source.toString());
+		Stylerule rule = (Stylerule) new IfOptimizer().optimize(ast).root.body.get(0);
+		assertEquals(20_000, rule.body.size());
+		assertEquals(20_000, ((Stylerule) compiler.transform(compiler.check(compiler.parse(source.toString()))).getAST().root.body.get(0)).body.size());
+	}
+}
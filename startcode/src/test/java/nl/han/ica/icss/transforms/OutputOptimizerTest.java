@@ -0,0 +1,42 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.compiler.CompilerOptions;
+import nl.han.ica.icss.compiler.CssResult;
+import nl.han.ica.icss.compiler.ICSSCompiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputOptimizerTest {
+
+	private final ICSSCompiler optimizing = new ICSSCompiler(CompilerOptions.DEFAULT.withOptimize(true));
+
+	private String optimized(String source) {
+		CssResult result = optimizing.compile(source);
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		return result.getCss();
+	}
+
+	@Test
+	void testKeepsOnlyTheLastDeclarationPerProperty() {
+		assertEquals("p {\n  color: #000000;\n  width: 2px;\n}\n",
+				optimized("p { width: 1px; color: #000000; if [TRUE] { width: 2px; } }"));
+	}
+
+	@Test
+	void testMergesRulesWithTheSameDeclarations() {
+		assertEquals("p, #a {\n  width: 1px;\n  color: #ffffff;\n}\n" + "a {\n  height: 3px;\n}\n",
+				optimized("p { width: 1px; color: #ffffff; } a { height: 3px; } #a { color: #ffffff; width: 1px; } p { }"));
+	}
+
+	@Test
+	void testDoesNotMergeAcrossARuleWithTheSameProperty() {
+		String source = "p { width: 1px; } a { width: 2px; } .c { width: 1px; }";
+		assertEquals("p {\n  width: 1px;\n}\na {\n  width: 2px;\n}\n.c {\n  width: 1px;\n}\n", optimized(source));
+	}
+
+	@Test
+	void testIsOffByDefault() {
+		assertEquals("p {\n  width: 1px;\n  width: 2px;\n}\n", new ICSSCompiler().compile("p { width: 1px; width: 2px; }").getCss());
+	}
+}